@@ -0,0 +1,71 @@
+package com.demo.benchmarks;
+
+import com.demo.order.OrderIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order id minting with one generator shared by all benchmark threads: the time-ordered
+ * {@link OrderIdGenerator} against the {@code "ORD-" + AtomicInteger} counter it replaced.
+ * Each pair runs at 1, 4 and 16 threads, so the single-CAS paths are measured under
+ * contention. Thread counts above the machine's core count are time-sliced rather than
+ * truly parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderIdBenchmark {
+
+    private final OrderIdGenerator generator = new OrderIdGenerator(1);
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Benchmark
+    @Threads(1)
+    public String atomicCounter1() {
+        return "ORD-" + counter.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generator1() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String atomicCounter4() {
+        return "ORD-" + counter.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generator4() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String atomicCounter16() {
+        return "ORD-" + counter.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String generator16() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,89 @@
+package com.demo.benchmarks;
+
+import com.demo.order.JsonUtil;
+import com.demo.order.JsonWriter;
+import com.demo.order.Order;
+import com.demo.order.OrderItem;
+import com.demo.order.OrderRequest;
+import com.demo.order.OrderRequestParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order request parsing and order serialization. {@code parseOrderRequest} is the legacy
+ * map-based parser; {@code parseStreaming} is the parser the POST /orders handler uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+    @Param({"1", "20"})
+    public int items;
+
+    private String requestJson;
+    private byte[] requestBytes;
+    private Order order;
+    private final OrderRequestParser parser = new OrderRequestParser();
+    private final JsonWriter writer = new JsonWriter();
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        List<OrderItem> orderItems = new ArrayList<>(items);
+        long total = 0;
+        for (int i = 1; i <= items; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"productId\":").append(i).append(",\"quantity\":").append(i % 5 + 1).append('}');
+            long price = 1999 + i;
+            long subtotal = price * (i % 5 + 1);
+            orderItems.add(new OrderItem(i, "Product " + i, price, i % 5 + 1, subtotal));
+            total += subtotal;
+        }
+        requestJson = json.append("]}").toString();
+        requestBytes = requestJson.getBytes(StandardCharsets.UTF_8);
+        order = new Order("ORD-0A89F83HR0W01", orderItems, total);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> parseOrderRequest() {
+        return JsonUtil.parseOrderRequest(requestJson);
+    }
+
+    @Benchmark
+    public OrderRequest parseStreaming() {
+        return parser.parse(requestBytes, 0, requestBytes.length);
+    }
+
+    @Benchmark
+    public String orderToJson() {
+        return JsonUtil.orderToJson(order);
+    }
+
+    @Benchmark
+    public int writeOrderReused() {
+        writer.reset();
+        JsonUtil.writeOrder(writer, order);
+        return writer.size();
+    }
+}
@@ -0,0 +1,91 @@
+package com.demo.benchmarks;
+
+import com.demo.order.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The money path of order creation: price each line, total the order and serialize every
+ * amount. {@code doubleDollars} is the previous double arithmetic with
+ * {@code Math.round(x * 100.0) / 100.0} after each step and rounding again on output;
+ * {@code longCents} is the current exact long-cents arithmetic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMoneyBenchmark {
+
+    @Param({"3", "20"})
+    public int lines;
+
+    private double[] prices;
+    private long[] priceCents;
+    private int[] quantities;
+    private final JsonWriter writer = new JsonWriter();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new double[lines];
+        priceCents = new long[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            priceCents[i] = 1 + random.nextInt(100_000);
+            prices[i] = priceCents[i] / 100.0;
+            quantities[i] = 1 + random.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public int doubleDollars() {
+        JsonWriter out = writer.reset();
+        double total = 0.0;
+        for (int i = 0; i < lines; i++) {
+            double subtotal = Math.round(prices[i] * quantities[i] * 100.0) / 100.0;
+            writePrice(out, prices[i]);
+            writePrice(out, subtotal);
+            total += subtotal;
+        }
+        total = Math.round(total * 100.0) / 100.0;
+        writePrice(out, total);
+        return out.size();
+    }
+
+    @Benchmark
+    public int longCents() {
+        JsonWriter out = writer.reset();
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            long subtotal = Math.multiplyExact(priceCents[i], quantities[i]);
+            out.cents(priceCents[i]);
+            out.cents(subtotal);
+            total = Math.addExact(total, subtotal);
+        }
+        out.cents(total);
+        return out.size();
+    }
+
+    /**
+     * The removed {@code JsonWriter.price(double)}: rounds to cents half away from zero, then
+     * writes them.
+     */
+    private static void writePrice(JsonWriter out, double value) {
+        long cents = Math.round(Math.abs(value) * 100.0);
+        out.cents(value < 0 ? -cents : cents);
+    }
+}
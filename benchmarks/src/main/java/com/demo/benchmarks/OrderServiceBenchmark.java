@@ -0,0 +1,108 @@
+package com.demo.benchmarks;
+
+import com.demo.order.Order;
+import com.demo.order.OrderIdGenerator;
+import com.demo.order.OrderItem;
+import com.demo.order.OrderService;
+import com.demo.order.OrderStore;
+import com.demo.order.ProductInfo;
+import com.demo.order.ProductLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order creation against an in-memory product lookup, so only the service's own work
+ * is measured: fan-out bookkeeping, pricing, id generation and storing the order.
+ * Created orders are discarded rather than stored, keeping the heap flat across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"1", "20"})
+    public int items;
+
+    private OrderService orderService;
+    private List<OrderItem> request;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderService(new StubProductLookup(), OrderService.DEFAULT_MAX_PARALLEL_LOOKUPS,
+                OrderService.DEFAULT_ORDER_DEADLINE, null, new DiscardingOrderStore(), new OrderIdGenerator(0));
+        request = new ArrayList<>(items);
+        for (int i = 1; i <= items; i++) {
+            request.add(OrderItem.fromRequest(i, i % 5 + 1));
+        }
+    }
+
+    @Benchmark
+    public Order createOrder() throws IOException {
+        return orderService.createOrder(request);
+    }
+
+    /**
+     * Product lookup that answers from a pre-built table with already completed futures.
+     */
+    static final class StubProductLookup implements ProductLookup {
+
+        private final ProductInfo[] products = new ProductInfo[CATALOG_SIZE + 1];
+        private final List<CompletableFuture<ProductInfo>> futures = new ArrayList<>(CATALOG_SIZE + 1);
+
+        StubProductLookup() {
+            futures.add(null);
+            for (int id = 1; id <= CATALOG_SIZE; id++) {
+                products[id] = new ProductInfo(id, "Product " + id, 100 + id);
+                futures.add(CompletableFuture.completedFuture(products[id]));
+            }
+        }
+
+        @Override
+        public ProductInfo getProductInfo(int productId) {
+            return products[productId];
+        }
+
+        @Override
+        public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+            return futures.get(productId);
+        }
+    }
+
+    static final class DiscardingOrderStore implements OrderStore {
+
+        @Override
+        public void put(Order order) {
+        }
+
+        @Override
+        public Order get(String orderId) {
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.benchmarks;
+
+import com.demo.product.ProductRepository;
+import com.demo.product.ProductResponseCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU per GET /products for each content coding: serving the body cached per catalog
+ * version, against compressing it on every request. The body size sent for each
+ * coding is printed once per trial as "wire bytes"; for 10000 generated products it is
+ * 557 kB as is and 72 kB gzip- or deflate-compressed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductCatalogCompressionBenchmark {
+
+    @Param({"1000", "10000"})
+    public int catalogSize;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    private ProductResponseCache cache;
+    private ProductResponseCache.Encoding contentEncoding;
+    private Sink sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException, InterruptedException {
+        cache = new ProductResponseCache(ProductRepository.withGeneratedCatalog(catalogSize));
+        contentEncoding = "identity".equals(encoding)
+                ? null
+                : ProductResponseCache.Encoding.valueOf(encoding.toUpperCase());
+        sink = new Sink(blackhole);
+
+        // The compressed forms are built in the background once the catalog is first served.
+        cache.catalog();
+        while (contentEncoding != null && cache.catalog(contentEncoding) == null) {
+            Thread.sleep(10);
+        }
+        ProductResponseCache.Representation representation = representation();
+        sink.count = 0;
+        representation.writeTo(sink);
+        System.out.println("\ncatalog=" + catalogSize + " encoding=" + encoding + " wire bytes=" + sink.count);
+    }
+
+    private ProductResponseCache.Representation representation() {
+        return contentEncoding != null ? cache.catalog(contentEncoding) : cache.catalog();
+    }
+
+    @Benchmark
+    public void cached() throws IOException {
+        representation().writeTo(sink);
+    }
+
+    @Benchmark
+    public void compressPerRequest() throws IOException {
+        ProductResponseCache.Representation catalog = cache.catalog();
+        if (contentEncoding == null) {
+            catalog.writeTo(sink);
+            return;
+        }
+        try (OutputStream out = contentEncoding == ProductResponseCache.Encoding.GZIP
+                ? new GZIPOutputStream(sink, 8192)
+                : new DeflaterOutputStream(sink)) {
+            catalog.writeTo(out);
+        }
+    }
+
+    /**
+     * Stands in for the socket: copies the bytes written into a send-buffer-sized array.
+     */
+    private static final class Sink extends OutputStream {
+
+        private final Blackhole blackhole;
+        private final byte[] sendBuffer = new byte[64 * 1024];
+        long count;
+
+        Sink(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            sendBuffer[(int) (count++ % sendBuffer.length)] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+            while (len > 0) {
+                int chunk = Math.min(len, sendBuffer.length);
+                System.arraycopy(b, off, sendBuffer, 0, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+            blackhole.consume(sendBuffer);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
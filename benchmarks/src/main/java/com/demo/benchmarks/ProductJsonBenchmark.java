@@ -0,0 +1,75 @@
+package com.demo.benchmarks;
+
+import com.demo.product.JsonUtil;
+import com.demo.product.JsonWriter;
+import com.demo.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product serialization: one product as a String, as bytes and into a reused writer,
+ * and a whole catalog as a String.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private final Product product = new Product(1, "Laptop \"Pro\" 15", 99999);
+    private final JsonWriter writer = new JsonWriter();
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"5", "1000"})
+        public int catalogSize;
+
+        List<Product> products;
+
+        @Setup
+        public void setUp() {
+            products = new ArrayList<>(catalogSize);
+            for (int id = 1; id <= catalogSize; id++) {
+                products.add(new Product(id, "Product " + id, 100 + id));
+            }
+        }
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtil.toJson(product);
+    }
+
+    @Benchmark
+    public byte[] toJsonBytes() {
+        return JsonUtil.toJsonBytes(product);
+    }
+
+    @Benchmark
+    public int writeProductReused() {
+        writer.reset();
+        JsonUtil.writeProduct(writer, product);
+        return writer.size();
+    }
+
+    @Benchmark
+    public String toJsonCatalog(Catalog catalog) {
+        return JsonUtil.toJson(catalog.products);
+    }
+}
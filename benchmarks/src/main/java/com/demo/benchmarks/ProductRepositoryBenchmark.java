@@ -0,0 +1,86 @@
+package com.demo.benchmarks;
+
+import com.demo.product.Product;
+import com.demo.product.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog reads: lookups by id (hits in random order, and misses) and a full scan
+ * through {@code findAll}. The heap retained by the repository after a full GC is
+ * printed once per trial as "retained heap".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductRepositoryBenchmark {
+
+    private static final int LOOKUP_IDS = 4096;
+
+    @Param({"5", "100000", "1000000", "10000000"})
+    public int catalogSize;
+
+    private ProductRepository repository;
+    private int[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        long before = usedHeap();
+        repository = ProductRepository.withGeneratedCatalog(catalogSize);
+        long retained = usedHeap() - before;
+        System.out.printf("%ncatalog=%d retained heap=%d MB (%.1f bytes/product)%n",
+                catalogSize, retained >> 20, (double) retained / catalogSize);
+        Random random = new Random(42);
+        ids = new int[LOOKUP_IDS];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + random.nextInt(repository.size());
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return repository.findById(ids[next++ & (LOOKUP_IDS - 1)]);
+    }
+
+    @Benchmark
+    public Optional<Product> findByIdMissing() {
+        return repository.findById(-ids[next++ & (LOOKUP_IDS - 1)]);
+    }
+
+    @Benchmark
+    public long findAll() {
+        List<Product> products = repository.findAll();
+        long sum = 0;
+        for (int i = 0; i < products.size(); i++) {
+            sum += products.get(i).getPriceCents();
+        }
+        return sum;
+    }
+}
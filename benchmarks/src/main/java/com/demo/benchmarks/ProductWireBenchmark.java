@@ -0,0 +1,56 @@
+package com.demo.benchmarks;
+
+import com.demo.order.ProductDecoder;
+import com.demo.order.ProductInfo;
+import com.demo.product.JsonUtil;
+import com.demo.product.Product;
+import com.demo.product.ProductCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two product wire formats between the services: encoding a product on the
+ * product-service side and decoding it into a ProductInfo on the order-service side.
+ * For the product below the JSON body is 61 bytes and the binary body 34.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductWireBenchmark {
+
+    private final Product product = new Product(1234, "Mechanical Keyboard", 7499);
+    private final byte[] json = JsonUtil.toJsonBytes(product);
+    private final byte[] binary = ProductCodec.encode(product);
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return JsonUtil.toJsonBytes(product);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return ProductCodec.encode(product);
+    }
+
+    @Benchmark
+    public ProductInfo decodeJson() {
+        return ProductDecoder.decode(json, 0, json.length);
+    }
+
+    @Benchmark
+    public ProductInfo decodeBinary() {
+        return com.demo.order.ProductCodec.decode(binary, 0, binary.length);
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.testing;
+
+import com.demo.testing.HttpTestClient.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how request throughput scales with the number of concurrent clients.
+ * Expects both services to already be running, e.g. started with
+ * {@code -Dorder.executor=fixed} or the default virtual-thread mode to compare.
+ *
+ * <p>Usage: {@code ConcurrencyBenchmark [orders|products] [secondsPerLevel]}
+ */
+public class ConcurrencyBenchmark {
+
+    private static final int[] CLIENT_LEVELS = {1, 2, 4, 8, 16, 32, 64};
+    private static final String ORDER_BODY =
+            "{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":3,\"quantity\":1}]}";
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "orders";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("Target: " + target + ", " + seconds + "s per level");
+        System.out.printf("%8s %12s %12s %8s%n", "clients", "req/s", "mean ms", "errors");
+        for (int clients : CLIENT_LEVELS) {
+            runLevel(target, clients, seconds);
+        }
+    }
+
+    private static void runLevel(String target, int clients, int seconds) throws Exception {
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder totalNanos = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            workers.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        Response response = send(target);
+                        if (response.getStatusCode() >= 400) {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    totalNanos.add(System.nanoTime() - start);
+                    completed.increment();
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        long count = completed.sum();
+        double meanMillis = count == 0 ? 0.0 : totalNanos.sum() / (double) count / 1_000_000.0;
+        System.out.printf("%8d %12.1f %12.2f %8d%n",
+                clients, count / (double) seconds, meanMillis, errors.sum());
+    }
+
+    private static Response send(String target) throws Exception {
+        if ("products".equals(target)) {
+            return HttpTestClient.get("http://localhost:8081/products/1");
+        }
+        return HttpTestClient.post("http://localhost:8082/orders", ORDER_BODY);
+    }
+}
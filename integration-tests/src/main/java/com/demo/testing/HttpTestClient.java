@@ -8,6 +8,10 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Simple HTTP client utility for sending requests in integration tests.
@@ -21,9 +25,17 @@ public class HttpTestClient {
      * Sends a GET request to the given URL.
      */
     public static Response get(String url) throws IOException {
+        return get(url, Map.of());
+    }
+
+    /**
+     * Sends a GET request with extra request headers to the given URL.
+     */
+    public static Response get(String url, Map<String, String> headers) throws IOException {
         HttpURLConnection conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
         try {
             conn.setRequestMethod("GET");
+            headers.forEach(conn::setRequestProperty);
             conn.setConnectTimeout(5000);
             conn.setReadTimeout(5000);
             return buildResponse(conn);
@@ -56,6 +68,12 @@ public class HttpTestClient {
     private static Response buildResponse(HttpURLConnection conn) throws IOException {
         int status = conn.getResponseCode();
         InputStream stream = (status >= 400) ? conn.getErrorStream() : conn.getInputStream();
+        // HttpURLConnection leaves content codings to the caller.
+        if (stream != null && "gzip".equals(conn.getContentEncoding())) {
+            stream = new GZIPInputStream(stream);
+        } else if (stream != null && "deflate".equals(conn.getContentEncoding())) {
+            stream = new InflaterInputStream(stream);
+        }
 
         String body = "";
         if (stream != null) {
@@ -64,12 +82,15 @@ public class HttpTestClient {
                 StringBuilder sb = new StringBuilder();
                 String line;
                 while ((line = reader.readLine()) != null) {
+                    if (sb.length() > 0) {
+                        sb.append('\n');
+                    }
                     sb.append(line);
                 }
                 body = sb.toString();
             }
         }
-        return new Response(status, body);
+        return new Response(status, body, conn.getHeaderFields());
     }
 
     /**
@@ -79,10 +100,12 @@ public class HttpTestClient {
 
         private final int statusCode;
         private final String body;
+        private final Map<String, List<String>> headers;
 
-        Response(int statusCode, String body) {
+        Response(int statusCode, String body, Map<String, List<String>> headers) {
             this.statusCode = statusCode;
             this.body = body;
+            this.headers = headers;
         }
 
         public int getStatusCode() {
@@ -92,5 +115,17 @@ public class HttpTestClient {
         public String getBody() {
             return body;
         }
+
+        /**
+         * Returns the first value of a response header, or null if absent.
+         */
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if (name.equalsIgnoreCase(entry.getKey()) && !entry.getValue().isEmpty()) {
+                    return entry.getValue().get(0);
+                }
+            }
+            return null;
+        }
     }
 }
@@ -0,0 +1,100 @@
+package com.demo.testing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe log-linear latency histogram in microseconds, in the style of HdrHistogram.
+ * Values below 256 us are counted exactly; above that each power of two is split into
+ * 128 buckets, so any reported percentile is within 0.8% of the recorded value.
+ *
+ * <p>{@link #recordCorrected(long, long)} compensates for coordinated omission: when a
+ * response took longer than the interval at which requests were meant to be sent, the
+ * requests that would have been issued (and stalled) in the meantime are recorded too.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_LIMIT = 256;
+    private static final int SUB_BUCKETS = 128;
+    private static final int MAX_MAGNITUDE = 40;
+    private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+    private final AtomicLongArray counts =
+            new AtomicLongArray(LINEAR_LIMIT + (MAX_MAGNITUDE - 8) * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long micros) {
+        long value = Math.max(0L, Math.min(MAX_VALUE, micros));
+        counts.incrementAndGet(index(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records a latency measured by a client that meant to send a request every
+     * {@code expectedIntervalMicros}, back-filling the samples a stalled client missed.
+     */
+    void recordCorrected(long micros, long expectedIntervalMicros) {
+        record(micros);
+        if (expectedIntervalMicros <= 0) {
+            return;
+        }
+        for (long missed = micros - expectedIntervalMicros; missed >= expectedIntervalMicros;
+                missed -= expectedIntervalMicros) {
+            record(missed);
+        }
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long maxMicros() {
+        return max.get();
+    }
+
+    double meanMicros() {
+        long n = total.get();
+        return n == 0 ? 0.0 : sum.get() / (double) n;
+    }
+
+    /**
+     * Returns the smallest recorded bucket value at or below which {@code quantile} of all
+     * samples fall, reported as the bucket's upper bound.
+     */
+    long percentileMicros(double quantile) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - 8;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
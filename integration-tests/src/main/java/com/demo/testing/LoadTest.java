@@ -0,0 +1,334 @@
+package com.demo.testing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Load generator for the product and order endpoints. Expects both services to be running;
+ * {@link TestRunner} starts them and calls {@link #run()} when given {@code -Dtest.mode=load}.
+ *
+ * <p>Each scenario runs open-loop (requests sent at a fixed rate whether or not earlier ones
+ * have answered, latency measured from the intended send time) and closed-loop (a fixed
+ * number of clients each waiting for its previous response, with coordinated-omission
+ * correction). Settings are system properties:
+ * <pre>
+ * load.mode           open, closed or both (default both)
+ * load.seconds        measured seconds per scenario and mode (default 10)
+ * load.warmupSeconds  unmeasured seconds before each run (default 2)
+ * load.rate           open-loop requests per second (default 500)
+ * load.clients        closed-loop concurrent clients (default 16)
+ * load.baseline       properties file of limits; the run fails if any is exceeded
+ * load.tolerance      allowed regression against the baseline, as a fraction (default 0.2)
+ * load.writeBaseline  file to write this run's results to, in baseline format
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final String PRODUCT_URL = "http://localhost:8081";
+    private static final String ORDER_URL = "http://localhost:8082";
+    private static final String ORDER_BODY =
+            "{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":3,\"quantity\":1}]}";
+    private static final int PRODUCT_IDS = 5;
+    private static final int SEED_ORDERS = 100;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public static void main(String[] args) {
+        System.exit(run() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Runs every scenario in the configured modes, prints a report and returns the number
+     * of failures: scenarios that could not run plus baseline regressions.
+     */
+    public static int run() {
+        try {
+            return new LoadTest().runAll();
+        } catch (Exception e) {
+            System.out.println("  FAIL: load test aborted — " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private int runAll() throws Exception {
+        String mode = System.getProperty("load.mode", "both");
+        int seconds = Integer.getInteger("load.seconds", 10);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 2);
+        int rate = Integer.getInteger("load.rate", 500);
+        int clients = Integer.getInteger("load.clients", 16);
+
+        List<String> orderIds = seedOrders();
+        Map<String, IntFunction<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("products", i -> get(PRODUCT_URL + "/products"));
+        scenarios.put("product", i -> get(PRODUCT_URL + "/products/" + (i % PRODUCT_IDS + 1)));
+        scenarios.put("create-order", i -> HttpRequest.newBuilder(URI.create(ORDER_URL + "/orders"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER_BODY))
+                .build());
+        scenarios.put("get-order", i -> get(ORDER_URL + "/orders/" + orderIds.get(i % orderIds.size())));
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        System.out.printf(Locale.ROOT, "%-20s %10s %10s %8s %10s %10s %10s %10s%n",
+                "scenario", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, IntFunction<HttpRequest>> scenario : scenarios.entrySet()) {
+            if (!"closed".equals(mode)) {
+                openLoop(scenario.getValue(), rate, warmupSeconds);
+                Result result = openLoop(scenario.getValue(), rate, seconds);
+                results.put("open." + scenario.getKey(), result);
+                print("open." + scenario.getKey(), result);
+            }
+            if (!"open".equals(mode)) {
+                Result warmup = closedLoop(scenario.getValue(), clients, warmupSeconds, 0);
+                long expectedInterval = (long) warmup.histogram.meanMicros();
+                Result result = closedLoop(scenario.getValue(), clients, seconds, expectedInterval);
+                results.put("closed." + scenario.getKey(), result);
+                print("closed." + scenario.getKey(), result);
+            }
+        }
+
+        String writeBaseline = System.getProperty("load.writeBaseline");
+        if (writeBaseline != null) {
+            writeBaseline(Path.of(writeBaseline), results);
+            System.out.println("Wrote baseline to " + writeBaseline);
+        }
+        String baseline = System.getProperty("load.baseline");
+        if (baseline == null) {
+            return 0;
+        }
+        return checkBaseline(Path.of(baseline), results,
+                Double.parseDouble(System.getProperty("load.tolerance", "0.2")));
+    }
+
+    /**
+     * Sends requests at a fixed rate from one dispatcher, without waiting for responses.
+     * Latency is measured from when each request was due, so a stalled server or a
+     * dispatcher that fell behind shows up in the percentiles instead of being hidden.
+     */
+    private Result openLoop(IntFunction<HttpRequest> scenario, int rate, int seconds)
+            throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (int i = 0; ; i++) {
+            long intended = start + i * period;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(scenario.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        histogram.record((now - intended) / 1000);
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.increment();
+                        }
+                        lastCompletion.accumulateAndGet(now, Math::max);
+                        inFlight.decrementAndGet();
+                    });
+        }
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new Result(histogram, histogram.count(), errors.sum(), Math.max(end, lastCompletion.get()) - start);
+    }
+
+    /**
+     * Runs {@code clients} threads that each send a request, wait for the answer and repeat.
+     * With a positive {@code expectedIntervalMicros}, responses slower than that interval
+     * also record the requests the client would have sent while it was stalled.
+     */
+    private Result closedLoop(IntFunction<HttpRequest> scenario, int clients, int seconds,
+                              long expectedIntervalMicros) throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicInteger sequence = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = client.send(scenario.apply(sequence.getAndIncrement()),
+                                HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                    } catch (IOException e) {
+                        failed = true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    histogram.recordCorrected((System.nanoTime() - sent) / 1000, expectedIntervalMicros);
+                    completed.increment();
+                    if (failed) {
+                        errors.increment();
+                    }
+                }
+            }, "load-client-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(histogram, completed.sum(), errors.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Creates orders for the GET /orders/{id} scenario to read back.
+     */
+    private List<String> seedOrders() throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(SEED_ORDERS);
+        for (int i = 0; i < SEED_ORDERS; i++) {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(ORDER_URL + "/orders"))
+                            .timeout(REQUEST_TIMEOUT)
+                            .POST(HttpRequest.BodyPublishers.ofString(ORDER_BODY))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String body = response.body();
+            int start = body.indexOf("\"orderId\":\"");
+            if (response.statusCode() != 201 || start < 0) {
+                throw new IOException("Could not seed orders: status " + response.statusCode() + " " + body);
+            }
+            start += "\"orderId\":\"".length();
+            ids.add(body.substring(start, body.indexOf('"', start)));
+        }
+        return ids;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private static void print(String name, Result result) {
+        LatencyHistogram h = result.histogram;
+        System.out.printf(Locale.ROOT, "%-20s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, result.completed, result.throughput(), result.errors,
+                h.percentileMicros(0.50) / 1000.0, h.percentileMicros(0.99) / 1000.0,
+                h.percentileMicros(0.999) / 1000.0, h.maxMicros() / 1000.0);
+    }
+
+    private static void writeBaseline(Path file, Map<String, Result> results) throws IOException {
+        Properties properties = new Properties();
+        results.forEach((name, result) -> {
+            properties.setProperty(name + ".p99Ms", format(result.histogram.percentileMicros(0.99) / 1000.0));
+            properties.setProperty(name + ".p999Ms", format(result.histogram.percentileMicros(0.999) / 1000.0));
+            properties.setProperty(name + ".throughput", format(result.throughput()));
+        });
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Load test baseline; latencies in ms, throughput in req/s");
+        }
+    }
+
+    /**
+     * Compares results against the baseline. Latency keys ({@code *.p99Ms}, {@code *.p999Ms})
+     * are upper limits and {@code *.throughput} keys are lower limits, each widened by the tolerance.
+     * Requests that failed also count as a regression.
+     */
+    private static int checkBaseline(Path file, Map<String, Result> results, double tolerance)
+            throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            baseline.load(in);
+        }
+        int failures = 0;
+        System.out.println();
+        System.out.println("=== Baseline " + file + " (tolerance " + Math.round(tolerance * 100) + "%) ===");
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            String name = entry.getKey();
+            Result result = entry.getValue();
+            failures += checkUpper(baseline, name + ".p99Ms",
+                    result.histogram.percentileMicros(0.99) / 1000.0, tolerance);
+            failures += checkUpper(baseline, name + ".p999Ms",
+                    result.histogram.percentileMicros(0.999) / 1000.0, tolerance);
+            String key = name + ".throughput";
+            if (baseline.containsKey(key)) {
+                double limit = Double.parseDouble(baseline.getProperty(key)) * (1 - tolerance);
+                failures += report(key, result.throughput() >= limit, result.throughput(), ">=", limit);
+            }
+            if (result.errors > 0) {
+                failures += report(name + ".errors", false, result.errors, "==", 0);
+            }
+        }
+        return failures;
+    }
+
+    private static int checkUpper(Properties baseline, String key, double actual, double tolerance) {
+        if (!baseline.containsKey(key)) {
+            return 0;
+        }
+        double limit = Double.parseDouble(baseline.getProperty(key)) * (1 + tolerance);
+        return report(key, actual <= limit, actual, "<=", limit);
+    }
+
+    private static int report(String key, boolean passed, double actual, String relation, double limit) {
+        System.out.println("  " + (passed ? "PASS" : "FAIL") + ": " + key + " = " + format(actual)
+                + " (expected " + relation + " " + format(limit) + ")");
+        return passed ? 0 : 1;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static final class Result {
+
+        final LatencyHistogram histogram;
+        final long completed;
+        final long errors;
+        final long elapsedNanos;
+
+        Result(LatencyHistogram histogram, long completed, long errors, long elapsedNanos) {
+            this.histogram = histogram;
+            this.completed = completed;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Completed requests per second; back-filled closed-loop samples are not requests.
+         */
+        double throughput() {
+            return completed / (elapsedNanos / 1e9);
+        }
+    }
+}
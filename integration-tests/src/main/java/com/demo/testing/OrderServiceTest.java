@@ -19,14 +19,24 @@ public class OrderServiceTest {
         int failures = 0;
         failures += run("POST /orders — valid order with multiple items",
                 OrderServiceTest::testCreateValidOrder);
+        failures += run("POST /orders — Server-Timing header breaks down the request",
+                OrderServiceTest::testCreateOrderServerTiming);
         failures += run("POST /orders — invalid product ID returns 400",
                 OrderServiceTest::testCreateOrderInvalidProduct);
         failures += run("POST /orders — empty items list returns 400",
                 OrderServiceTest::testCreateOrderEmptyItems);
+        failures += run("POST /orders — too many items returns 413",
+                OrderServiceTest::testCreateOrderTooManyItems);
+        failures += run("POST /orders/batch — one result line per order, errors isolated",
+                OrderServiceTest::testCreateOrderBatch);
         failures += run("GET /orders/{id} — retrieve previously created order",
                 OrderServiceTest::testGetExistingOrder);
+        failures += run("GET /orders/{id} — every order in a run can be retrieved",
+                OrderServiceTest::testGetManyOrders);
         failures += run("GET /orders/ORD-999 — returns 404",
                 OrderServiceTest::testGetOrderNotFound);
+        failures += run("GET /metrics — counts order requests by route and status",
+                OrderServiceTest::testMetrics);
         return failures;
     }
 
@@ -76,6 +86,27 @@ public class OrderServiceTest {
         return null;
     }
 
+    private static String testCreateOrderServerTiming() throws Exception {
+        String requestBody = "{\"items\":[{\"productId\":2,\"quantity\":1}]}";
+        Response response = HttpTestClient.post(BASE_URL + "/orders", requestBody);
+
+        if (response.getStatusCode() != 201) {
+            return "Expected status 201, got " + response.getStatusCode();
+        }
+
+        String timing = response.getHeader("Server-Timing");
+        if (timing == null) {
+            return "Response missing Server-Timing header";
+        }
+        for (String phase : new String[] {"parse", "lookup", "compute", "persist", "serialize", "total"}) {
+            if (!timing.contains(phase + ";dur=")) {
+                return "Expected " + phase + " in Server-Timing, got: " + timing;
+            }
+        }
+
+        return null;
+    }
+
     private static String testCreateOrderInvalidProduct() throws Exception {
         String requestBody = "{\"items\":[{\"productId\":999,\"quantity\":1}]}";
         Response response = HttpTestClient.post(BASE_URL + "/orders", requestBody);
@@ -108,6 +139,67 @@ public class OrderServiceTest {
         return null;
     }
 
+    private static String testCreateOrderTooManyItems() throws Exception {
+        StringBuilder requestBody = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 1001; i++) {
+            if (i > 0) {
+                requestBody.append(",");
+            }
+            requestBody.append("{\"productId\":1,\"quantity\":1}");
+        }
+        requestBody.append("]}");
+        Response response = HttpTestClient.post(BASE_URL + "/orders", requestBody.toString());
+
+        if (response.getStatusCode() != 413) {
+            return "Expected status 413, got " + response.getStatusCode();
+        }
+
+        String body = response.getBody();
+        if (!body.contains("maximum of 1000 items")) {
+            return "Expected item limit error message, got: " + body;
+        }
+
+        return null;
+    }
+
+    private static String testCreateOrderBatch() throws Exception {
+        String requestBody = "{\"items\":[{\"productId\":1,\"quantity\":1}]}\n"
+                + "{\"items\":[{\"productId\":999,\"quantity\":1}]}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":3,\"quantity\":1}]}\n";
+        Response response = HttpTestClient.post(BASE_URL + "/orders/batch", requestBody);
+
+        if (response.getStatusCode() != 200) {
+            return "Expected status 200, got " + response.getStatusCode() + " body: " + response.getBody();
+        }
+
+        String[] lines = response.getBody().split("\n");
+        if (lines.length != 4) {
+            return "Expected 4 result lines, got: " + response.getBody();
+        }
+        if (!lines[0].startsWith("{\"line\":1,\"status\":201,")) {
+            return "Expected line 1 to be created, got: " + lines[0];
+        }
+        if (!lines[1].startsWith("{\"line\":2,\"status\":400,") || !lines[1].contains("Product not found")) {
+            return "Expected line 2 to fail with 'Product not found', got: " + lines[1];
+        }
+        if (!lines[2].startsWith("{\"line\":4,\"status\":400,")) {
+            return "Expected line 4 to fail with 400, got: " + lines[2];
+        }
+        if (!lines[3].startsWith("{\"line\":5,\"status\":201,") || !lines[3].contains("2074.97")) {
+            return "Expected line 5 to be created with total 2074.97, got: " + lines[3];
+        }
+
+        String orderId = extractValue(lines[3], "orderId");
+        Response getResponse = HttpTestClient.get(BASE_URL + "/orders/" + orderId);
+        if (getResponse.getStatusCode() != 200) {
+            return "Expected batch order " + orderId + " to be retrievable, got " + getResponse.getStatusCode();
+        }
+
+        return null;
+    }
+
     private static String testGetExistingOrder() throws Exception {
         // Create an order first
         String requestBody = "{\"items\":[{\"productId\":2,\"quantity\":3}]}";
@@ -141,6 +233,30 @@ public class OrderServiceTest {
         return null;
     }
 
+    private static String testGetManyOrders() throws Exception {
+        // Enough orders that a sharded deployment spreads them over every shard.
+        for (int i = 0; i < 12; i++) {
+            String requestBody = "{\"items\":[{\"productId\":1,\"quantity\":" + (i + 1) + "}]}";
+            Response createResponse = HttpTestClient.post(BASE_URL + "/orders", requestBody);
+            if (createResponse.getStatusCode() != 201) {
+                return "Setup failed: could not create order, status " + createResponse.getStatusCode();
+            }
+            String orderId = extractValue(createResponse.getBody(), "orderId");
+            if (orderId == null) {
+                return "Could not extract orderId from response: " + createResponse.getBody();
+            }
+
+            Response getResponse = HttpTestClient.get(BASE_URL + "/orders/" + orderId);
+            if (getResponse.getStatusCode() != 200) {
+                return "Expected status 200 for " + orderId + ", got " + getResponse.getStatusCode();
+            }
+            if (!getResponse.getBody().contains("\"quantity\":" + (i + 1))) {
+                return "Order " + orderId + " came back with the wrong items: " + getResponse.getBody();
+            }
+        }
+        return null;
+    }
+
     private static String testGetOrderNotFound() throws Exception {
         Response response = HttpTestClient.get(BASE_URL + "/orders/ORD-999");
 
@@ -156,6 +272,26 @@ public class OrderServiceTest {
         return null;
     }
 
+    private static String testMetrics() throws Exception {
+        Response response = HttpTestClient.get(BASE_URL + "/metrics");
+
+        if (response.getStatusCode() != 200) {
+            return "Expected status 200, got " + response.getStatusCode();
+        }
+
+        // Earlier tests requested a missing id, so that route and status must have been counted.
+        String body = response.getBody();
+        String expected = "http_requests_total{route=\"/orders/{id}\",status=\"404\"}";
+        if (!body.contains(expected)) {
+            return "Expected " + expected + " in metrics, got: " + body;
+        }
+        if (!body.contains("# TYPE http_request_duration_seconds histogram")) {
+            return "Missing handler latency histogram";
+        }
+
+        return null;
+    }
+
     /**
      * Extracts a quoted string value for a given key from a JSON string.
      */
@@ -2,6 +2,8 @@ package com.demo.testing;
 
 import com.demo.testing.HttpTestClient.Response;
 
+import java.util.Map;
+
 /**
  * Integration tests for the product service endpoints.
  */
@@ -21,8 +23,20 @@ public class ProductServiceTest {
                 ProductServiceTest::testGetAllProducts);
         failures += run("GET /products/{id} — returns correct product",
                 ProductServiceTest::testGetProductById);
+        failures += run("GET /products/{id} — Accept selects the binary encoding",
+                ProductServiceTest::testGetProductBinary);
         failures += run("GET /products/999 — returns 404",
                 ProductServiceTest::testGetProductNotFound);
+        failures += run("GET /products — matching If-None-Match returns 304",
+                ProductServiceTest::testGetAllProductsNotModified);
+        failures += run("GET /products — gzip and deflate negotiated through Accept-Encoding",
+                ProductServiceTest::testGetAllProductsCompressed);
+        failures += run("GET /products?limit=2 — returns first page with next link",
+                ProductServiceTest::testGetProductsPage);
+        failures += run("GET /catalog — full snapshot, and 410 for a delta from another epoch",
+                ProductServiceTest::testCatalogFeed);
+        failures += run("GET /metrics — counts product requests by route and status",
+                ProductServiceTest::testMetrics);
         return failures;
     }
 
@@ -82,6 +96,84 @@ public class ProductServiceTest {
         return null;
     }
 
+    private static String testGetProductBinary() throws Exception {
+        Response binary = HttpTestClient.get(BASE_URL + "/products/1",
+                Map.of("Accept", "application/x-demo-product, application/json;q=0.5"));
+        if (binary.getStatusCode() != 200) {
+            return "Expected status 200, got " + binary.getStatusCode();
+        }
+        if (!"application/x-demo-product".equals(binary.getHeader("Content-Type"))) {
+            return "Expected binary Content-Type, got " + binary.getHeader("Content-Type");
+        }
+        if (!"Accept".equals(binary.getHeader("Vary"))) {
+            return "Expected Vary: Accept, got " + binary.getHeader("Vary");
+        }
+
+        Response json = HttpTestClient.get(BASE_URL + "/products/1", Map.of("Accept", "*/*"));
+        if (!"application/json".equals(json.getHeader("Content-Type"))) {
+            return "Expected JSON for Accept */*, got " + json.getHeader("Content-Type");
+        }
+        Response preferred = HttpTestClient.get(BASE_URL + "/products/1",
+                Map.of("Accept", "application/json, application/x-demo-product;q=0.1"));
+        if (!"application/json".equals(preferred.getHeader("Content-Type"))) {
+            return "Expected JSON when it has the higher quality, got " + preferred.getHeader("Content-Type");
+        }
+        if (json.getHeader("ETag").equals(binary.getHeader("ETag"))) {
+            return "Expected the JSON and binary representations to have different ETags";
+        }
+
+        return null;
+    }
+
+    private static String testGetAllProductsCompressed() throws Exception {
+        Response identity = HttpTestClient.get(BASE_URL + "/products");
+        if (identity.getHeader("Content-Encoding") != null) {
+            return "Expected no Content-Encoding without Accept-Encoding, got " + identity.getHeader("Content-Encoding");
+        }
+
+        for (String encoding : new String[] {"gzip", "deflate"}) {
+            Response compressed = getCatalogCompressed(encoding);
+            if (compressed.getStatusCode() != 200) {
+                return "Expected status 200 for " + encoding + ", got " + compressed.getStatusCode();
+            }
+            if (!encoding.equals(compressed.getHeader("Content-Encoding"))) {
+                return "Expected Content-Encoding " + encoding + ", got " + compressed.getHeader("Content-Encoding");
+            }
+            if (!"Accept-Encoding".equals(compressed.getHeader("Vary"))) {
+                return "Expected Vary: Accept-Encoding, got " + compressed.getHeader("Vary");
+            }
+            if (!identity.getBody().equals(compressed.getBody())) {
+                return "Decompressed " + encoding + " body differs from the uncompressed catalog";
+            }
+            if (identity.getHeader("ETag").equals(compressed.getHeader("ETag"))) {
+                return "Expected the " + encoding + " representation to have its own ETag";
+            }
+        }
+
+        Response refused = HttpTestClient.get(BASE_URL + "/products", Map.of("Accept-Encoding", "gzip;q=0"));
+        if (refused.getHeader("Content-Encoding") != null) {
+            return "Expected no Content-Encoding for gzip;q=0, got " + refused.getHeader("Content-Encoding");
+        }
+
+        return null;
+    }
+
+    /**
+     * Requests the catalog with the given content coding, retrying briefly while it is still
+     * sent uncompressed: the compressed forms are built in the background after a change.
+     */
+    private static Response getCatalogCompressed(String encoding) throws Exception {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (true) {
+            Response response = HttpTestClient.get(BASE_URL + "/products",
+                    Map.of("Accept-Encoding", encoding + ", identity;q=0.5"));
+            if (response.getHeader("Content-Encoding") != null || System.currentTimeMillis() > deadline) {
+                return response;
+            }
+            Thread.sleep(50);
+        }
+    }
+
     private static String testGetProductNotFound() throws Exception {
         Response response = HttpTestClient.get(BASE_URL + "/products/999");
 
@@ -97,6 +189,84 @@ public class ProductServiceTest {
         return null;
     }
 
+    private static String testGetAllProductsNotModified() throws Exception {
+        Response first = HttpTestClient.get(BASE_URL + "/products");
+        String etag = first.getHeader("ETag");
+        if (etag == null) {
+            return "Response missing ETag header";
+        }
+
+        Response second = HttpTestClient.get(BASE_URL + "/products", Map.of("If-None-Match", etag));
+        if (second.getStatusCode() != 304) {
+            return "Expected status 304, got " + second.getStatusCode();
+        }
+        if (!second.getBody().isEmpty()) {
+            return "Expected empty body for 304, got: " + second.getBody();
+        }
+
+        return null;
+    }
+
+    private static String testGetProductsPage() throws Exception {
+        Response response = HttpTestClient.get(BASE_URL + "/products?limit=2");
+
+        if (response.getStatusCode() != 200) {
+            return "Expected status 200, got " + response.getStatusCode();
+        }
+
+        String body = response.getBody();
+        if (!body.contains("Laptop") || !body.contains("Mouse")) {
+            return "Expected Laptop and Mouse on first page, got: " + body;
+        }
+        if (body.contains("Keyboard")) {
+            return "First page should hold only 2 products, got: " + body;
+        }
+
+        String link = response.getHeader("Link");
+        if (link == null || !link.contains("cursor=2")) {
+            return "Expected Link header with cursor=2, got: " + link;
+        }
+
+        return null;
+    }
+
+    private static String testCatalogFeed() throws Exception {
+        Response snapshot = HttpTestClient.get(BASE_URL + "/catalog");
+        if (snapshot.getStatusCode() != 200) {
+            return "Expected status 200, got " + snapshot.getStatusCode();
+        }
+        if (!"application/x-demo-catalog".equals(snapshot.getHeader("Content-Type"))) {
+            return "Expected catalog Content-Type, got " + snapshot.getHeader("Content-Type");
+        }
+
+        Response delta = HttpTestClient.get(BASE_URL + "/catalog?since=0&epoch=-1");
+        if (delta.getStatusCode() != 410) {
+            return "Expected status 410 for an unknown epoch, got " + delta.getStatusCode();
+        }
+
+        return null;
+    }
+
+    private static String testMetrics() throws Exception {
+        Response response = HttpTestClient.get(BASE_URL + "/metrics");
+
+        if (response.getStatusCode() != 200) {
+            return "Expected status 200, got " + response.getStatusCode();
+        }
+
+        // Earlier tests requested a missing id, so that route and status must have been counted.
+        String body = response.getBody();
+        String expected = "http_requests_total{route=\"/products/{id}\",status=\"404\"}";
+        if (!body.contains(expected)) {
+            return "Expected " + expected + " in metrics, got: " + body;
+        }
+        if (!body.contains("# TYPE http_request_duration_seconds histogram")) {
+            return "Missing handler latency histogram";
+        }
+
+        return null;
+    }
+
     @FunctionalInterface
     interface TestCase {
         String execute() throws Exception;
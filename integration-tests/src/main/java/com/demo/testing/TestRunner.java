@@ -4,14 +4,22 @@ import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Main entry point for integration tests.
- * Starts both services as subprocesses, runs all tests, and reports results.
+ * Starts both services as subprocesses, runs all tests, and reports results. The order
+ * service's component tests, which use stub servers instead, run last in a separate JVM.
+ * With {@code -Dtest.shards=N} the order service runs as N shards on ports 8091 and up,
+ * behind an order router on port 8082, and the same tests run through the router.
+ * With {@code -Dtest.mode=load} the services are driven by {@link LoadTest} instead of
+ * the functional tests.
  */
 public class TestRunner {
 
     private static final int MAX_STARTUP_WAIT_SECONDS = 60;
+    private static final int FIRST_SHARD_PORT = 8091;
 
     public static void main(String[] args) {
         int exitCode = run();
@@ -20,7 +28,8 @@ public class TestRunner {
 
     private static int run() {
         Process productProcess = null;
-        Process orderProcess = null;
+        List<Process> orderProcesses = new ArrayList<>();
+        int shards = Integer.getInteger("test.shards", 0);
 
         try {
             File projectRoot = findProjectRoot();
@@ -28,23 +37,40 @@ public class TestRunner {
             System.out.println("Starting product service...");
             productProcess = startService(projectRoot, "product-service");
 
-            System.out.println("Starting order service...");
-            orderProcess = startService(projectRoot, "order-service");
+            if (shards > 0) {
+                orderProcesses.addAll(startShards(projectRoot, shards));
+            } else {
+                System.out.println("Starting order service...");
+                orderProcesses.add(startService(projectRoot, "order-service"));
+            }
 
             System.out.println("Waiting for product service on port 8081...");
             waitForService("http://localhost:8081/products");
 
+            for (int i = 0; i < shards; i++) {
+                System.out.println("Waiting for order shard on port " + (FIRST_SHARD_PORT + i) + "...");
+                waitForService("http://localhost:" + (FIRST_SHARD_PORT + i) + "/orders/health");
+            }
             System.out.println("Waiting for order service on port 8082...");
             waitForService("http://localhost:8082/orders/health");
 
             System.out.println("Both services are up.\n");
 
-            System.out.println("=== Product Service Tests ===");
-            int failures = ProductServiceTest.runAll();
+            int failures;
+            if ("load".equals(System.getProperty("test.mode"))) {
+                System.out.println("=== Load Test ===");
+                failures = LoadTest.run();
+            } else {
+                System.out.println("=== Product Service Tests ===");
+                failures = ProductServiceTest.runAll();
 
-            System.out.println();
-            System.out.println("=== Order Service Tests ===");
-            failures += OrderServiceTest.runAll();
+                System.out.println();
+                System.out.println("=== Order Service Tests ===");
+                failures += OrderServiceTest.runAll();
+
+                System.out.println();
+                failures += runComponentTests(projectRoot);
+            }
 
             System.out.println();
             if (failures == 0) {
@@ -60,7 +86,7 @@ public class TestRunner {
             return 1;
         } finally {
             stopProcess(productProcess);
-            stopProcess(orderProcess);
+            orderProcesses.forEach(TestRunner::stopProcess);
         }
     }
 
@@ -82,7 +108,55 @@ public class TestRunner {
     }
 
     private static Process startService(File projectRoot, String module) throws IOException {
-        ProcessBuilder pb = new ProcessBuilder("mvn", "-pl", module, "compile", "exec:java");
+        return start(projectRoot, List.of("mvn", "-pl", module, "compile", "exec:java"));
+    }
+
+    /**
+     * Starts {@code count} order shards and the order router in front of them.
+     * The module is compiled once up front so the processes don't race on target/classes.
+     */
+    private static List<Process> startShards(File projectRoot, int count) throws Exception {
+        System.out.println("Compiling order service...");
+        Process compile = start(projectRoot, List.of("mvn", "-q", "-pl", "order-service", "compile"));
+        if (compile.waitFor() != 0) {
+            throw new IllegalStateException("order-service failed to compile");
+        }
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            urls.add("http://localhost:" + (FIRST_SHARD_PORT + i));
+        }
+        String shardList = String.join(",", urls);
+
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            System.out.println("Starting order shard " + i + " on port " + (FIRST_SHARD_PORT + i) + "...");
+            processes.add(start(projectRoot, List.of("mvn", "-pl", "order-service", "exec:java",
+                    "-Dorder.port=" + (FIRST_SHARD_PORT + i),
+                    "-Dorder.shards=" + shardList,
+                    "-Dorder.shard.self=" + urls.get(i))));
+        }
+        System.out.println("Starting order router...");
+        processes.add(start(projectRoot, List.of("mvn", "-pl", "order-service", "exec:java",
+                "-Dexec.mainClass=com.demo.order.OrderRouterServer",
+                "-Dorder.shards=" + shardList)));
+        return processes;
+    }
+
+    /**
+     * Runs the order service's in-process component tests in their own JVM, since this
+     * module does not depend on the order service, and returns their number of failures.
+     */
+    private static int runComponentTests(File projectRoot) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder("mvn", "-q", "-pl", "order-service", "test-compile", "exec:java",
+                "-Dexec.classpathScope=test", "-Dexec.mainClass=com.demo.order.ComponentTestRunner");
+        pb.directory(projectRoot);
+        pb.inheritIO();
+        return pb.start().waitFor();
+    }
+
+    private static Process start(File projectRoot, List<String> command) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
         pb.directory(projectRoot);
         pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
         pb.redirectError(ProcessBuilder.Redirect.DISCARD);
@@ -0,0 +1,39 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Handles GET /cache/stats, reporting product cache hit, miss and eviction counters.
+ */
+public class CacheStatsHandler implements HttpHandler {
+
+    private final ProductCache cache;
+
+    public CacheStatsHandler(ProductCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            JsonUtil.writeError(out, "Method not allowed");
+            sendResponse(exchange, 405, out);
+            return;
+        }
+        JsonUtil.writeCacheStats(out, cache.stats());
+        sendResponse(exchange, 200, out);
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, JsonWriter body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            body.writeTo(os);
+        }
+    }
+}
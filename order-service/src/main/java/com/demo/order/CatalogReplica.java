@@ -0,0 +1,305 @@
+package com.demo.order;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of the product catalog, kept current from the product service's
+ * GET /catalog feed, that answers product lookups without a remote call.
+ *
+ * <p>A background thread copies the whole catalog once and then polls for the products
+ * changed since the version it holds, copying everything again only if the product service
+ * restarted or the change log no longer reaches back far enough. Lookups go to the
+ * {@code fallback} when the id is not in the replica, or when the last successful sync
+ * started more than {@code maxStaleness} ago, so a stalled feed never serves prices
+ * older than that bound.
+ *
+ * <p>Feed format, all integers big-endian:
+ * <pre>
+ * epoch   i64
+ * version i64
+ * count   i32
+ * per product: length i32 + {@link ProductCodec} bytes
+ * </pre>
+ */
+public class CatalogReplica implements ProductLookup, Closeable {
+
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofSeconds(5);
+
+    private static final String MEDIA_TYPE = "application/x-demo-catalog";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(1000);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ENCODED_PRODUCT = 1 + 4 + 8 + 2 + 0xFFFF;
+
+    private final String baseUrl;
+    private final ProductLookup fallback;
+    private final long maxStalenessNanos;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+
+    // Written only by the sync thread; products is published before version and lastSyncNanos.
+    private volatile Map<Integer, ProductInfo> products = new ConcurrentHashMap<>();
+    private volatile long epoch = -1;
+    private volatile long version = -1;
+    private volatile long lastSyncNanos;
+
+    // Touched only by the sync thread.
+    private boolean failing;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder fullSyncs = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+
+    /**
+     * Creates the replica and starts syncing it in the background; until the first sync
+     * succeeds every lookup goes to the fallback.
+     *
+     * @param baseUrl         product service base URL
+     * @param fallback        lookup used for unknown ids and while the replica is stale
+     * @param refreshInterval delay between the end of one sync and the start of the next
+     * @param maxStaleness    how old the last successful sync may be before lookups fall back
+     */
+    public CatalogReplica(String baseUrl, ProductLookup fallback, Duration refreshInterval, Duration maxStaleness) {
+        if (refreshInterval.isNegative() || refreshInterval.isZero() || maxStaleness.compareTo(refreshInterval) < 0) {
+            throw new IllegalArgumentException("Intervals must satisfy 0 < refresh <= max staleness: "
+                    + refreshInterval + ", " + maxStaleness);
+        }
+        this.baseUrl = baseUrl;
+        this.fallback = fallback;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-replica");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ProductInfo getProductInfo(int productId) throws IOException {
+        ProductInfo product = local(productId);
+        return product != null ? product : fallback.getProductInfo(productId);
+    }
+
+    @Override
+    public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+        ProductInfo product = local(productId);
+        return product != null ? CompletableFuture.completedFuture(product) : fallback.getProductInfoAsync(productId);
+    }
+
+    private ProductInfo local(int productId) {
+        ProductInfo product = isFresh() ? products.get(productId) : null;
+        if (product != null) {
+            hits.increment();
+        } else {
+            fallbacks.increment();
+        }
+        return product;
+    }
+
+    /**
+     * Returns true if the replica has synced within the staleness bound.
+     */
+    public boolean isFresh() {
+        return version >= 0 && System.nanoTime() - lastSyncNanos <= maxStalenessNanos;
+    }
+
+    /**
+     * Returns lookup counters and the replica's sync state.
+     */
+    public Stats stats() {
+        long age = version >= 0 ? (System.nanoTime() - lastSyncNanos) / 1_000_000 : -1;
+        return new Stats(hits.sum(), fallbacks.sum(), syncs.sum(), fullSyncs.sum(), syncFailures.sum(),
+                version, products.size(), age);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            sync();
+            if (failing) {
+                failing = false;
+                System.out.println("Catalog sync recovered at version " + version);
+            }
+        } catch (IOException | RuntimeException e) {
+            syncFailures.increment();
+            // Log the first failure of an outage only; the counter tracks the rest.
+            if (!failing) {
+                failing = true;
+                System.err.println("Catalog sync failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Brings the replica up to date: with the changes since the held version when the
+     * product service still has them, with a full copy otherwise.
+     */
+    void sync() throws IOException {
+        long start = System.nanoTime();
+        if (version >= 0) {
+            HttpResponse<InputStream> response = send("/catalog?since=" + version + "&epoch=" + epoch);
+            if (response.statusCode() == 200) {
+                apply(response, false);
+                lastSyncNanos = start;
+                syncs.increment();
+                return;
+            }
+            response.body().close();
+            if (response.statusCode() != 410) {
+                throw new IOException("Catalog feed returned status " + response.statusCode());
+            }
+        }
+
+        HttpResponse<InputStream> response = send("/catalog");
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Catalog feed returned status " + response.statusCode());
+        }
+        apply(response, true);
+        lastSyncNanos = start;
+        syncs.increment();
+        fullSyncs.increment();
+    }
+
+    private HttpResponse<InputStream> send(String pathAndQuery) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", MEDIA_TYPE)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while syncing catalog");
+        }
+    }
+
+    /**
+     * Reads a feed response into a new map for a full copy, or into the live map for a
+     * delta. A delta applied in place is safe: each entry is replaced whole.
+     */
+    private void apply(HttpResponse<InputStream> response, boolean full) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(response.body(), STREAM_BUFFER_SIZE))) {
+            long feedEpoch = in.readLong();
+            long feedVersion = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Malformed catalog feed: negative product count");
+            }
+            Map<Integer, ProductInfo> target = full ? new ConcurrentHashMap<>(count * 4 / 3 + 1) : products;
+            byte[] encoded = new byte[64];
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_ENCODED_PRODUCT) {
+                    throw new IOException("Malformed catalog feed: product length " + length);
+                }
+                if (length > encoded.length) {
+                    encoded = new byte[length];
+                }
+                in.readFully(encoded, 0, length);
+                ProductInfo product = ProductCodec.decode(encoded, 0, length);
+                target.put(product.getId(), product);
+            }
+            products = target;
+            epoch = feedEpoch;
+            version = feedVersion;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed catalog feed", e);
+        }
+    }
+
+    /**
+     * Point-in-time lookup counters and sync state.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long fallbacks;
+        private final long syncs;
+        private final long fullSyncs;
+        private final long syncFailures;
+        private final long version;
+        private final int size;
+        private final long ageMillis;
+
+        Stats(long hits, long fallbacks, long syncs, long fullSyncs, long syncFailures,
+              long version, int size, long ageMillis) {
+            this.hits = hits;
+            this.fallbacks = fallbacks;
+            this.syncs = syncs;
+            this.fullSyncs = fullSyncs;
+            this.syncFailures = syncFailures;
+            this.version = version;
+            this.size = size;
+            this.ageMillis = ageMillis;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        public long getSyncs() {
+            return syncs;
+        }
+
+        public long getFullSyncs() {
+            return fullSyncs;
+        }
+
+        public long getSyncFailures() {
+            return syncFailures;
+        }
+
+        /**
+         * Returns the catalog version held, or -1 before the first sync.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the time since the last successful sync started, or -1 before the first sync.
+         */
+        public long getAgeMillis() {
+            return ageMillis;
+        }
+    }
+}
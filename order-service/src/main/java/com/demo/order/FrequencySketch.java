@@ -0,0 +1,109 @@
+package com.demo.order;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch of recent access frequencies, used for TinyLFU admission.
+ * Counters saturate at 15 and are halved after every sample period so that
+ * stale popularity ages out.
+ *
+ * <p>Thread-safe without locking: the 4-bit counters are packed sixteen to a long and
+ * raised with compare-and-set. Concurrent updates may make an estimate slightly off,
+ * which admission tolerates. Keys whose counters are saturated cause no writes at all.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long HALVE_MASK = 0x7777_7777_7777_7777L;
+    private static final int[] SEEDS = {0x97cb3127, 0x5a2b9d1f, 0x3c6ef372, 0x1b873593};
+
+    private final AtomicLongArray table;
+    private final int width;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int maximumSize) {
+        this.width = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+        this.table = new AtomicLongArray(DEPTH * width / 16);
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Returns the estimated number of recent occurrences of the key.
+     */
+    int frequency(int key) {
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, count(position(key, row)));
+        }
+        return min;
+    }
+
+    /**
+     * Records one occurrence of the key, aging all counters once the sample period is reached.
+     */
+    void increment(int key) {
+        int min = frequency(key);
+        if (min == MAX_COUNT) {
+            return;
+        }
+        boolean added = false;
+        // Conservative update: only the counters holding the minimum are raised.
+        for (int row = 0; row < DEPTH; row++) {
+            int position = position(key, row);
+            if (count(position) == min) {
+                added |= raise(position, min);
+            }
+        }
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+            additions.addAndGet(-sampleSize / 2);
+        }
+    }
+
+    private int count(int position) {
+        return (int) (table.get(position >>> 4) >>> shift(position)) & MAX_COUNT;
+    }
+
+    /**
+     * Raises the counter from {@code expected} by one; gives up if another thread moved it first.
+     */
+    private boolean raise(int position, int expected) {
+        int slot = position >>> 4;
+        int shift = shift(position);
+        while (true) {
+            long current = table.get(slot);
+            if (((current >>> shift) & MAX_COUNT) != expected) {
+                return false;
+            }
+            if (table.compareAndSet(slot, current, current + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        for (int slot = 0; slot < table.length(); slot++) {
+            long current;
+            do {
+                current = table.get(slot);
+            } while (!table.compareAndSet(slot, current, (current >>> 1) & HALVE_MASK));
+        }
+    }
+
+    private int position(int key, int row) {
+        int h = key * SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return row * width + (h & mask);
+    }
+
+    private static int shift(int position) {
+        return (position & 15) << 2;
+    }
+}
@@ -0,0 +1,89 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a context handler to record request counts, in-flight requests and handler time.
+ * Requests to the context path itself are reported as that route; anything below it
+ * as {@code <contextPath>/{id}}, which keeps label cardinality fixed.
+ *
+ * <p>A request is recorded when the delegate returns if the response has been started by
+ * then, and otherwise when the response body is closed, so handlers that answer from an
+ * asynchronous callback are timed to their real completion.
+ */
+public class InstrumentedHandler implements HttpHandler {
+
+    private final String contextPath;
+    private final HttpHandler delegate;
+    private final Metrics.Route collection;
+    private final Metrics.Route item;
+
+    public InstrumentedHandler(String contextPath, HttpHandler delegate, Metrics metrics) {
+        this.contextPath = contextPath;
+        this.delegate = delegate;
+        this.collection = metrics.route(contextPath);
+        this.item = metrics.route(contextPath + "/{id}");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Metrics.Route route = exchange.getRequestURI().getPath().length() > contextPath.length() + 1
+                ? item : collection;
+        Completion completion = new Completion(exchange, route);
+        exchange.setStreams(null, completion);
+        try {
+            delegate.handle(exchange);
+        } catch (IOException | RuntimeException e) {
+            completion.record();
+            throw e;
+        }
+        if (exchange.getResponseCode() != -1) {
+            completion.record();
+        }
+    }
+
+    /**
+     * Response body wrapper that records the request once, on close or when the
+     * delegate returns with the response already under way, whichever comes first.
+     */
+    private static final class Completion extends FilterOutputStream {
+
+        private final HttpExchange exchange;
+        private final Metrics.Route route;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        Completion(HttpExchange exchange, Metrics.Route route) {
+            super(exchange.getResponseBody());
+            this.exchange = exchange;
+            this.route = route;
+            route.begin();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                record();
+            }
+        }
+
+        void record() {
+            if (recorded.compareAndSet(false, true)) {
+                route.end(exchange.getResponseCode(), System.nanoTime() - start);
+            }
+        }
+    }
+}
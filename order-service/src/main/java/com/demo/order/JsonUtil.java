@@ -2,6 +2,7 @@ package com.demo.order;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,10 +10,40 @@ import java.util.Map;
 
 /**
  * Minimal hand-rolled JSON serializer and deserializer.
- * Handles flat objects and arrays of flat objects.
+ * Handles flat objects and arrays of flat objects; serialization goes through {@link JsonWriter}.
  */
 public class JsonUtil {
 
+    private static final byte[] ORDER_ID = ascii("{\"orderId\":");
+    private static final byte[] ITEMS = ascii(",\"items\":[");
+    private static final byte[] TOTAL = ascii("],\"total\":");
+    private static final byte[] PRODUCT_ID = ascii("{\"productId\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] PRICE = ascii(",\"price\":");
+    private static final byte[] QUANTITY = ascii(",\"quantity\":");
+    private static final byte[] SUBTOTAL = ascii(",\"subtotal\":");
+    private static final byte[] ERROR = ascii("{\"error\":");
+    private static final byte[] BATCH_LINE = ascii("{\"line\":");
+    private static final byte[] BATCH_STATUS = ascii(",\"status\":");
+    private static final byte[] BATCH_ORDER = ascii(",\"order\":");
+    private static final byte[] BATCH_ERROR = ascii(",\"error\":");
+    private static final byte[] HITS = ascii("{\"hits\":");
+    private static final byte[] MISSES = ascii(",\"misses\":");
+    private static final byte[] HIT_RATE = ascii(",\"hitRate\":");
+    private static final byte[] EVICTIONS = ascii(",\"evictions\":");
+    private static final byte[] REJECTIONS = ascii(",\"rejections\":");
+    private static final byte[] REFRESHES = ascii(",\"refreshes\":");
+    private static final byte[] SIZE = ascii(",\"size\":");
+    private static final byte[] MAX_ENTRIES = ascii(",\"maxEntries\":");
+    private static final byte[] HOT_ORDERS = ascii("{\"hotOrders\":");
+    private static final byte[] HOT_BYTES = ascii(",\"hotBytes\":");
+    private static final byte[] COLD_ORDERS = ascii(",\"coldOrders\":");
+    private static final byte[] COLD_FILE_BYTES = ascii(",\"coldFileBytes\":");
+    private static final byte[] HOT_GETS = ascii(",\"hotGets\":");
+    private static final byte[] HOT_GET_MEAN_NANOS = ascii(",\"hotGetMeanNanos\":");
+    private static final byte[] COLD_GETS = ascii(",\"coldGets\":");
+    private static final byte[] COLD_GET_MEAN_NANOS = ascii(",\"coldGetMeanNanos\":");
+
     private JsonUtil() {
     }
 
@@ -93,49 +124,109 @@ public class JsonUtil {
     }
 
     /**
-     * Serializes an Order to a JSON string.
+     * Writes an Order as a JSON object.
      */
-    public static String orderToJson(Order order) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"orderId\":\"").append(order.getOrderId()).append("\",\"items\":[");
+    public static void writeOrder(JsonWriter out, Order order) {
+        out.raw(ORDER_ID).string(order.getOrderId()).raw(ITEMS);
 
         List<OrderItem> items = order.getItems();
         for (int i = 0; i < items.size(); i++) {
             if (i > 0) {
-                sb.append(",");
+                out.raw(',');
             }
-            sb.append(orderItemToJson(items.get(i)));
+            writeOrderItem(out, items.get(i));
         }
 
-        sb.append("],\"total\":").append(formatPrice(order.getTotal())).append("}");
-        return sb.toString();
+        out.raw(TOTAL).cents(order.getTotalCents()).raw('}');
+    }
+
+    /**
+     * Serializes an Order to a JSON string.
+     */
+    public static String orderToJson(Order order) {
+        JsonWriter out = JsonWriter.local();
+        writeOrder(out, order);
+        return out.toString();
+    }
+
+    /**
+     * Writes an OrderItem as a JSON object.
+     */
+    public static void writeOrderItem(JsonWriter out, OrderItem item) {
+        out.raw(PRODUCT_ID).number(item.getProductId())
+                .raw(NAME).string(item.getName())
+                .raw(PRICE).cents(item.getPriceCents())
+                .raw(QUANTITY).number(item.getQuantity())
+                .raw(SUBTOTAL).cents(item.getSubtotalCents())
+                .raw('}');
     }
 
     /**
      * Serializes an OrderItem to a JSON string.
      */
     public static String orderItemToJson(OrderItem item) {
-        return "{\"productId\":" + item.getProductId()
-                + ",\"name\":\"" + item.getName() + "\""
-                + ",\"price\":" + formatPrice(item.getPrice())
-                + ",\"quantity\":" + item.getQuantity()
-                + ",\"subtotal\":" + formatPrice(item.getSubtotal()) + "}";
+        JsonWriter out = JsonWriter.local();
+        writeOrderItem(out, item);
+        return out.toString();
     }
 
     /**
-     * Serializes an error message to a JSON string.
+     * Writes product cache counters as a JSON object.
      */
-    public static String errorToJson(String message) {
-        return "{\"error\":\"" + message + "\"}";
+    public static void writeCacheStats(JsonWriter out, ProductCache.Stats stats) {
+        out.raw(HITS).number(stats.getHits())
+                .raw(MISSES).number(stats.getMisses())
+                .raw(HIT_RATE).raw(ascii(BigDecimal.valueOf(stats.getHitRate())
+                        .setScale(4, RoundingMode.HALF_UP).toPlainString()))
+                .raw(EVICTIONS).number(stats.getEvictions())
+                .raw(REJECTIONS).number(stats.getRejections())
+                .raw(REFRESHES).number(stats.getRefreshes())
+                .raw(SIZE).number(stats.getSize())
+                .raw(MAX_ENTRIES).number(stats.getMaxEntries())
+                .raw('}');
     }
 
     /**
-     * Formats a double price to avoid floating-point display artifacts.
+     * Writes order store tier sizes and GET latencies as a JSON object.
      */
-    private static String formatPrice(double price) {
-        return BigDecimal.valueOf(price)
-                .setScale(2, RoundingMode.HALF_UP)
-                .toPlainString();
+    public static void writeStoreStats(JsonWriter out, TieredOrderStore.Stats stats) {
+        out.raw(HOT_ORDERS).number(stats.getHotOrders())
+                .raw(HOT_BYTES).number(stats.getHotBytes())
+                .raw(COLD_ORDERS).number(stats.getColdOrders())
+                .raw(COLD_FILE_BYTES).number(stats.getColdFileBytes())
+                .raw(HOT_GETS).number(stats.getHotGets())
+                .raw(HOT_GET_MEAN_NANOS).number(stats.getHotGetMeanNanos())
+                .raw(COLD_GETS).number(stats.getColdGets())
+                .raw(COLD_GET_MEAN_NANOS).number(stats.getColdGetMeanNanos())
+                .raw('}');
+    }
+
+    /**
+     * Writes an error message as a JSON object.
+     */
+    public static void writeError(JsonWriter out, String message) {
+        out.raw(ERROR).string(message).raw('}');
+    }
+
+    /**
+     * Writes the POST /orders/batch result line for a created order, newline included.
+     */
+    public static void writeBatchOrder(JsonWriter out, long line, Order order) {
+        out.raw(BATCH_LINE).number(line).raw(BATCH_STATUS).number(201).raw(BATCH_ORDER);
+        writeOrder(out, order);
+        out.raw('}').raw('\n');
+    }
+
+    /**
+     * Writes the POST /orders/batch result line for an order that failed, newline included.
+     */
+    public static void writeBatchError(JsonWriter out, long line, int status, String message) {
+        out.raw(BATCH_LINE).number(line).raw(BATCH_STATUS).number(status)
+                .raw(BATCH_ERROR).string(message).raw('}').raw('\n');
+    }
+
+    private static byte[] ascii(String literal) {
+        return literal.getBytes(StandardCharsets.US_ASCII);
     }
 
     private static String stripQuotes(String value) {
@@ -0,0 +1,58 @@
+package com.demo.order;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding window of the most recent response latencies with cheap percentile reads.
+ * Recording is a single array store; percentiles come from a sorted snapshot of the
+ * window that is rebuilt at most every {@value #REFRESH_MILLIS} ms by whichever caller
+ * notices it is stale.
+ */
+final class LatencyTracker {
+
+    static final int MIN_SAMPLES = 100;
+
+    private static final int WINDOW = 1024;
+    private static final long REFRESH_MILLIS = 50;
+
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long[] sorted = new long[0];
+    private volatile long sortedAt;
+
+    void record(long nanos) {
+        samples[(int) (recorded.getAndIncrement() & (WINDOW - 1))] = nanos;
+    }
+
+    /**
+     * Returns the latency at the given quantile of the recent window in nanoseconds,
+     * or -1 until {@value #MIN_SAMPLES} responses have been recorded.
+     */
+    long percentile(double quantile) {
+        long[] snapshot = snapshot();
+        if (snapshot.length < MIN_SAMPLES) {
+            return -1;
+        }
+        int index = (int) Math.ceil(quantile * snapshot.length) - 1;
+        return snapshot[Math.max(0, Math.min(snapshot.length - 1, index))];
+    }
+
+    private long[] snapshot() {
+        long now = System.currentTimeMillis();
+        if (now - sortedAt >= REFRESH_MILLIS && refreshing.compareAndSet(false, true)) {
+            try {
+                int count = (int) Math.min(WINDOW, recorded.get());
+                long[] copy = Arrays.copyOf(samples, count);
+                Arrays.sort(copy);
+                sorted = copy;
+                sortedAt = now;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return sorted;
+    }
+}
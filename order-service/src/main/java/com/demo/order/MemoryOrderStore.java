@@ -0,0 +1,27 @@
+package com.demo.order;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order store that keeps every order on the heap.
+ */
+public class MemoryOrderStore implements OrderStore {
+
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(Order order) {
+        orders.put(order.getOrderId(), order);
+    }
+
+    @Override
+    public Order get(String orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+}
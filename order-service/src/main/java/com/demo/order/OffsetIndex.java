@@ -0,0 +1,104 @@
+package com.demo.order;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Open-addressing hash index from a 64-bit key hash to a file offset, with linear probing.
+ * Only the hash is kept, never the key itself, so an entry costs sixteen bytes plus slack;
+ * callers confirm a hash match against the key stored at the offset.
+ *
+ * <p>Capacity is fixed per instance; {@link #resized()} returns a larger copy. Not
+ * thread-safe.
+ */
+final class OffsetIndex {
+
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final long TOMBSTONE = -1;
+
+    // offsets[i] holds offset + 1, so that zero marks an empty slot and -1 a removed one.
+    private final long[] hashes;
+    private final long[] offsets;
+    private final int mask;
+    private int size;
+    private int used;
+
+    OffsetIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.hashes = new long[capacity];
+        this.offsets = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the first offset stored under the hash that the predicate accepts, or -1.
+     */
+    long get(long hash, LongPredicate matches) {
+        int i = find(hash, matches);
+        return i < 0 ? -1 : offsets[i] - 1;
+    }
+
+    /**
+     * Adds an entry for a key that is not yet present. Callers check {@link #isFull()} first.
+     */
+    void put(long hash, long offset) {
+        int i = (int) hash & mask;
+        while (offsets[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        offsets[i] = offset + 1;
+        size++;
+        used++;
+    }
+
+    /**
+     * Removes the first entry under the hash whose offset the predicate accepts.
+     *
+     * @return whether an entry was removed
+     */
+    boolean remove(long hash, LongPredicate matches) {
+        int i = find(hash, matches);
+        if (i < 0) {
+            return false;
+        }
+        offsets[i] = TOMBSTONE;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether another {@link #put} would exceed the load factor; removed slots still count.
+     */
+    boolean isFull() {
+        return used + 1 > hashes.length * LOAD_FACTOR;
+    }
+
+    /**
+     * Returns a copy without removed slots, with room for twice the current entries.
+     */
+    OffsetIndex resized() {
+        OffsetIndex copy = new OffsetIndex(Math.max(size, 1) * 2);
+        for (int i = 0; i < hashes.length; i++) {
+            if (offsets[i] > 0) {
+                copy.put(hashes[i], offsets[i] - 1);
+            }
+        }
+        return copy;
+    }
+
+    private int find(long hash, LongPredicate matches) {
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            long offset = offsets[i];
+            if (offset == 0) {
+                return -1;
+            }
+            if (offset > 0 && hashes[i] == hash && matches.test(offset - 1)) {
+                return i;
+            }
+        }
+    }
+}
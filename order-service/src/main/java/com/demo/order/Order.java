@@ -3,19 +3,19 @@ package com.demo.order;
 import java.util.List;
 
 /**
- * Represents a complete order with its ID, line items, and total.
+ * Represents a complete order with its ID, line items, and total in cents.
  * Immutable — items list is defensively copied.
  */
 public class Order {
 
     private final String orderId;
     private final List<OrderItem> items;
-    private final double total;
+    private final long totalCents;
 
-    public Order(String orderId, List<OrderItem> items, double total) {
+    public Order(String orderId, List<OrderItem> items, long totalCents) {
         this.orderId = orderId;
         this.items = List.copyOf(items);
-        this.total = total;
+        this.totalCents = totalCents;
     }
 
     public String getOrderId() {
@@ -26,7 +26,7 @@ public class Order {
         return items;
     }
 
-    public double getTotal() {
-        return total;
+    public long getTotalCents() {
+        return totalCents;
     }
 }
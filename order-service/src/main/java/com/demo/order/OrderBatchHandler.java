@@ -0,0 +1,295 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Handles POST /orders/batch: newline-delimited order requests, each line a
+ * POST /orders body, answered with one NDJSON result line per order in input order.
+ *
+ * <p>Each line is parsed and its order started as soon as it arrives, with at most
+ * {@code maxInFlight} orders of the batch waiting on lookups at a time. Product lookups
+ * are shared across the whole batch. A line that fails gets its own 400, 413 or 500
+ * result line and does not affect the others; the response itself is always 200.
+ *
+ * <p>Results are written once the request body has been read. HttpURLConnection and the
+ * JDK HttpClient only read a response after sending the whole request, so writing while
+ * they upload could fill both socket buffers and stall the exchange.
+ */
+public class OrderBatchHandler implements HttpHandler {
+
+    public static final int DEFAULT_MAX_ORDERS = 10_000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OrderService orderService;
+    private final OrderRequestParser requestParser;
+    private final int maxOrders;
+    private final int maxInFlight;
+
+    public OrderBatchHandler(OrderService orderService, OrderRequestParser requestParser) {
+        this(orderService, requestParser, DEFAULT_MAX_ORDERS, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param maxOrders   largest accepted number of orders per batch; further lines are
+     *                    answered with a single 413 result and not read
+     * @param maxInFlight orders of one batch allowed to wait on lookups at the same time
+     */
+    public OrderBatchHandler(OrderService orderService, OrderRequestParser requestParser,
+                             int maxOrders, int maxInFlight) {
+        if (maxOrders <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Batch limits must be positive");
+        }
+        this.orderService = orderService;
+        this.requestParser = requestParser;
+        this.maxOrders = maxOrders;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            JsonWriter out = JsonWriter.local();
+            JsonUtil.writeError(out, "Method not allowed");
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(405, out.size());
+            try (OutputStream os = exchange.getResponseBody()) {
+                out.writeTo(os);
+            }
+            return;
+        }
+
+        Deque<Result> results;
+        try (InputStream body = exchange.getRequestBody()) {
+            results = startOrders(body);
+        } catch (IOException e) {
+            System.err.println("Error reading order batch: " + e.getMessage());
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = exchange.getResponseBody()) {
+            writeResults(results, os);
+        }
+    }
+
+    /**
+     * Reads the batch line by line, starting each order as its line arrives. Blocks only
+     * while {@code maxInFlight} orders are already waiting on lookups.
+     */
+    private Deque<Result> startOrders(InputStream body) throws IOException {
+        OrderService.Batch batch = orderService.newBatch();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Deque<Result> results = new ArrayDeque<>();
+        LineReader lines = new LineReader(body, requestParser.getMaxBodyBytes());
+        int orders = 0;
+        while (lines.next()) {
+            if (lines.isBlank()) {
+                continue;
+            }
+            if (orders == maxOrders) {
+                results.add(new Result(lines.number(), CompletableFuture.failedFuture(
+                        new OrderRequestParser.RequestTooLargeException(
+                                "Batch exceeds maximum of " + maxOrders + " orders"))));
+                break;
+            }
+            orders++;
+            results.add(new Result(lines.number(), startOrder(batch, lines, inFlight)));
+        }
+        return results;
+    }
+
+    private CompletableFuture<Order> startOrder(OrderService.Batch batch, LineReader lines, Semaphore inFlight)
+            throws IOException {
+        if (lines.isTooLong()) {
+            return CompletableFuture.failedFuture(new OrderRequestParser.RequestTooLargeException(
+                    "Order exceeds maximum of " + requestParser.getMaxBodyBytes() + " bytes"));
+        }
+        OrderRequest request;
+        try {
+            request = requestParser.parse(lines.bytes(), 0, lines.length());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading order batch");
+        }
+        CompletableFuture<Order> order = batch.createOrderAsync(request.toItems(), new OrderTiming());
+        order.whenComplete((created, error) -> inFlight.release());
+        return order;
+    }
+
+    /**
+     * Writes results in input order as each completes, flushing whenever the next
+     * result is not ready yet so finished lines reach the client without delay.
+     */
+    private static void writeResults(Deque<Result> results, OutputStream os) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        for (Result result : results) {
+            if (!result.order.isDone()) {
+                out.writeTo(os);
+                out.reset();
+                os.flush();
+            }
+            result.writeTo(out);
+            if (out.size() >= BUFFER_SIZE) {
+                out.writeTo(os);
+                out.reset();
+            }
+        }
+        out.writeTo(os);
+    }
+
+    /**
+     * One line of the batch and the order started for it.
+     */
+    private static final class Result {
+
+        private final long line;
+        private final CompletableFuture<Order> order;
+
+        Result(long line, CompletableFuture<Order> order) {
+            this.line = line;
+            this.order = order;
+        }
+
+        void writeTo(JsonWriter out) {
+            Order created;
+            try {
+                created = order.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                int status = OrderHandler.errorStatus(cause);
+                JsonUtil.writeBatchError(out, line, status, OrderHandler.errorMessage(status, cause));
+                return;
+            }
+            JsonUtil.writeBatchOrder(out, line, created);
+        }
+    }
+
+    /**
+     * Splits a stream into lines without decoding it. Lines longer than {@code maxLength}
+     * are consumed to their end but not kept, and reported by {@link #isTooLong()}.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final int maxLength;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int limit;
+
+        private byte[] line = new byte[256];
+        private int length;
+        private boolean tooLong;
+        private long number;
+
+        LineReader(InputStream in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Advances to the next line, returning false at the end of the stream.
+         */
+        boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (pos == limit) {
+                    limit = in.read(buf, 0, buf.length);
+                    pos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (any) {
+                            number++;
+                        }
+                        return any;
+                    }
+                }
+                any = true;
+                int start = pos;
+                while (pos < limit && buf[pos] != '\n') {
+                    pos++;
+                }
+                append(start, pos - start);
+                if (pos < limit) {
+                    pos++;
+                    number++;
+                    if (length > 0 && line[length - 1] == '\r') {
+                        length--;
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void append(int start, int count) {
+            if (tooLong || count == 0) {
+                return;
+            }
+            if (length + count > maxLength) {
+                tooLong = true;
+                length = 0;
+                return;
+            }
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.min(maxLength, Math.max(line.length * 2, length + count)));
+            }
+            System.arraycopy(buf, start, line, length, count);
+            length += count;
+        }
+
+        boolean isBlank() {
+            if (tooLong) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                byte b = line[i];
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        byte[] bytes() {
+            return line;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Returns the 1-based number of the current line, counting blank lines.
+         */
+        long number() {
+            return number;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link Order} used by the on-disk order stores.
+ *
+ * <pre>
+ * version   u8, currently 2
+ * orderId   u16 length + UTF-8 bytes
+ * total     i64 cents
+ * itemCount i32
+ * per item: productId i32, name (u16 length + UTF-8), price i64, quantity i32, subtotal i64
+ * </pre>
+ *
+ * <p>Version 1 records, written before amounts were kept in cents, have no version byte and
+ * carry the total, price and subtotal as f64. They start with the high byte of the order id
+ * length, which is 0 for any id shorter than 256 bytes, and are converted to cents on read.
+ */
+final class OrderCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte UNVERSIONED = 0;
+
+    private OrderCodec() {
+    }
+
+    /**
+     * Returns an upper bound on the encoded size of the order.
+     */
+    static int maxEncodedSize(Order order) {
+        int size = 1 + 2 + order.getOrderId().length() * 3 + 8 + 4;
+        for (OrderItem item : order.getItems()) {
+            size += 4 + 2 + item.getName().length() * 3 + 8 + 4 + 8;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the order at the buffer's position, which must have
+     * {@link #maxEncodedSize(Order)} bytes remaining.
+     */
+    static void encode(Order order, ByteBuffer out) {
+        out.put(VERSION);
+        putString(out, order.getOrderId());
+        out.putLong(order.getTotalCents());
+        List<OrderItem> items = order.getItems();
+        out.putInt(items.size());
+        for (OrderItem item : items) {
+            out.putInt(item.getProductId());
+            putString(out, item.getName());
+            out.putLong(item.getPriceCents());
+            out.putInt(item.getQuantity());
+            out.putLong(item.getSubtotalCents());
+        }
+    }
+
+    /**
+     * Reads an order from the buffer's position.
+     *
+     * @throws IllegalArgumentException if the bytes do not describe an order, or were written
+     *                                  in an unknown version of the encoding
+     */
+    static Order decode(ByteBuffer in) {
+        boolean cents = readVersion(in);
+        String orderId = getString(in);
+        long total = getAmount(in, cents);
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt order record");
+        }
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int productId = in.getInt();
+            String name = getString(in);
+            long price = getAmount(in, cents);
+            int quantity = in.getInt();
+            long subtotal = getAmount(in, cents);
+            items.add(new OrderItem(productId, name, price, quantity, subtotal));
+        }
+        return new Order(orderId, items, total);
+    }
+
+    /**
+     * Reads only the order id of an encoded order, from the buffer's position.
+     */
+    static String decodeOrderId(ByteBuffer in) {
+        readVersion(in);
+        return getString(in);
+    }
+
+    /**
+     * Consumes the version byte, if the record has one, and returns whether amounts are
+     * stored as cents.
+     */
+    private static boolean readVersion(ByteBuffer in) {
+        byte version = in.get(in.position());
+        if (version == UNVERSIONED) {
+            return false;
+        }
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported order encoding version: " + version);
+        }
+        in.get();
+        return true;
+    }
+
+    private static long getAmount(ByteBuffer in, boolean cents) {
+        return cents ? in.getLong() : Math.round(in.getDouble() * 100);
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long to encode: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -3,25 +3,58 @@ package com.demo.order;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles HTTP requests to /orders and /orders/{id}.
  * Routes POST for order creation and GET for order retrieval.
+ *
+ * <p>POST /orders returns once the request body is parsed; the response is sent from a
+ * callback when the order's product lookups and log append finish, so the thread running
+ * the exchange is not held while the order waits on I/O.
  */
 public class OrderHandler implements HttpHandler {
 
     private final OrderService orderService;
+    private final OrderRequestParser requestParser;
+    private final double traceSampleRate;
+    private final long traceSlowNanos;
+    private final Executor completionExecutor;
 
     public OrderHandler(OrderService orderService) {
+        this(orderService, new OrderRequestParser());
+    }
+
+    public OrderHandler(OrderService orderService, OrderRequestParser requestParser) {
+        this(orderService, requestParser, 0.0, 0, Runnable::run);
+    }
+
+    /**
+     * @param traceSampleRate    fraction of POST /orders requests, from 0 to 1, whose phase
+     *                           timings are written to the trace log
+     * @param traceSlowMillis    requests taking at least this long are always traced; 0 disables
+     * @param completionExecutor runs the callbacks that send POST /orders responses, keeping
+     *                           response writes off the product client and order log threads
+     */
+    public OrderHandler(OrderService orderService, OrderRequestParser requestParser,
+                        double traceSampleRate, long traceSlowMillis, Executor completionExecutor) {
+        if (traceSampleRate < 0 || traceSampleRate > 1) {
+            throw new IllegalArgumentException("traceSampleRate must be between 0 and 1");
+        }
+        if (traceSlowMillis < 0) {
+            throw new IllegalArgumentException("traceSlowMillis must not be negative");
+        }
         this.orderService = orderService;
+        this.requestParser = requestParser;
+        this.traceSampleRate = traceSampleRate;
+        this.traceSlowNanos = TimeUnit.MILLISECONDS.toNanos(traceSlowMillis);
+        this.completionExecutor = completionExecutor;
     }
 
     @Override
@@ -35,36 +68,114 @@ public class OrderHandler implements HttpHandler {
             } else if (path.startsWith("/orders/") && "GET".equals(method)) {
                 handleGetOrder(exchange);
             } else {
-                sendResponse(exchange, 405, JsonUtil.errorToJson("Method not allowed"));
+                sendError(exchange, 405, "Method not allowed");
             }
         } catch (Exception e) {
             System.err.println("Unexpected error: " + e.getMessage());
-            sendResponse(exchange, 500, JsonUtil.errorToJson("Internal server error"));
+            sendError(exchange, 500, "Internal server error");
         }
     }
 
-    private void handleCreateOrder(HttpExchange exchange) throws IOException {
+    private void handleCreateOrder(HttpExchange exchange) {
+        OrderTiming timing = new OrderTiming();
+        OrderRequest request;
         try {
-            String body = readRequestBody(exchange);
-            List<Map<String, String>> parsed = JsonUtil.parseOrderRequest(body);
-
-            List<OrderItem> requestItems = new ArrayList<>();
-            for (Map<String, String> map : parsed) {
-                int productId = Integer.parseInt(map.get("productId"));
-                int quantity = Integer.parseInt(map.get("quantity"));
-                requestItems.add(OrderItem.fromRequest(productId, quantity));
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null && Long.parseLong(contentLength.trim()) > requestParser.getMaxBodyBytes()) {
+                throw new OrderRequestParser.RequestTooLargeException(
+                        "Request body exceeds maximum of " + requestParser.getMaxBodyBytes() + " bytes");
+            }
+
+            long t = System.nanoTime();
+            try (InputStream body = exchange.getRequestBody()) {
+                request = requestParser.parse(body);
+            } finally {
+                timing.record(OrderTiming.Phase.PARSE, t);
             }
+        } catch (IOException | RuntimeException e) {
+            completeCreateOrder(exchange, timing, null, e);
+            return;
+        }
 
-            Order order = orderService.createOrder(requestItems);
-            sendResponse(exchange, 201, JsonUtil.orderToJson(order));
-        } catch (IllegalArgumentException e) {
-            sendResponse(exchange, 400, JsonUtil.errorToJson(e.getMessage()));
-        } catch (ProductClient.ProductNotFoundException e) {
-            sendResponse(exchange, 400, JsonUtil.errorToJson(e.getMessage()));
-        } catch (IOException e) {
-            System.err.println("Error calling product service: " + e.getMessage());
-            sendResponse(exchange, 500, JsonUtil.errorToJson("Internal server error"));
+        orderService.createOrderAsync(request.toItems(), timing)
+                .whenCompleteAsync((order, error) -> completeCreateOrder(exchange, timing, order, error),
+                        completionExecutor);
+    }
+
+    /**
+     * Sends the response for a created order or the error that prevented it. Runs on the
+     * completion executor, so failures to write are logged here rather than propagated.
+     */
+    private void completeCreateOrder(HttpExchange exchange, OrderTiming timing, Order order, Throwable error) {
+        int status;
+        try {
+            if (error == null) {
+                long t = System.nanoTime();
+                JsonWriter out = JsonWriter.local();
+                JsonUtil.writeOrder(out, order);
+                timing.record(OrderTiming.Phase.SERIALIZE, t);
+                status = 201;
+                sendTimedResponse(exchange, status, out, timing);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                status = errorStatus(cause);
+                sendTimedError(exchange, status, errorMessage(status, cause), timing);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error sending order response: " + e.getMessage());
+            try {
+                exchange.getResponseBody().close();
+            } catch (IOException ignored) {
+                // The connection is already broken; closing the exchange below releases it.
+            }
+            exchange.close();
+            return;
         }
+        trace(status, order != null ? order.getOrderId() : null, timing);
+    }
+
+    /**
+     * Maps a failed order creation to its response status: 413 for oversized requests,
+     * 400 for invalid requests and unknown products, 500 for everything else.
+     */
+    static int errorStatus(Throwable cause) {
+        if (cause instanceof OrderRequestParser.RequestTooLargeException) {
+            return 413;
+        }
+        if (cause instanceof IllegalArgumentException || cause instanceof ProductClient.ProductNotFoundException) {
+            return 400;
+        }
+        return 500;
+    }
+
+    /**
+     * Returns the client-facing message for a failed order creation. Server-side failures
+     * are logged and reported generically.
+     */
+    static String errorMessage(int status, Throwable cause) {
+        if (status != 500) {
+            return cause.getMessage();
+        }
+        System.err.println((cause instanceof IOException
+                ? "Error calling product service: " : "Unexpected error: ") + cause.getMessage());
+        return "Internal server error";
+    }
+
+    /**
+     * Writes the phase timings of a sampled or slow POST /orders to stdout, one line
+     * per request, so the slow phase of an individual request can be found after the fact.
+     */
+    private void trace(int status, String orderId, OrderTiming timing) {
+        long elapsed = timing.elapsedNanos();
+        boolean slow = traceSlowNanos > 0 && elapsed >= traceSlowNanos;
+        if (!slow && (traceSampleRate == 0
+                || ThreadLocalRandom.current().nextDouble() >= traceSampleRate)) {
+            return;
+        }
+        System.out.println("trace POST /orders status=" + status
+                + " order=" + (orderId != null ? orderId : "-")
+                + (slow ? " slow " : " ") + timing.toLogFields());
     }
 
     private void handleGetOrder(HttpExchange exchange) throws IOException {
@@ -73,30 +184,38 @@ public class OrderHandler implements HttpHandler {
 
         Order order = orderService.getOrder(orderId);
         if (order == null) {
-            sendResponse(exchange, 404, JsonUtil.errorToJson("Order not found"));
+            sendError(exchange, 404, "Order not found");
         } else {
-            sendResponse(exchange, 200, JsonUtil.orderToJson(order));
+            JsonWriter out = JsonWriter.local();
+            JsonUtil.writeOrder(out, order);
+            sendResponse(exchange, 200, out);
         }
     }
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String jsonBody) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        byte[] bytes = jsonBody.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, bytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(bytes);
-        }
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        JsonUtil.writeError(out, message);
+        sendResponse(exchange, statusCode, out);
     }
 
-    private String readRequestBody(HttpExchange exchange) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-            return sb.toString();
+    private void sendTimedError(HttpExchange exchange, int statusCode, String message,
+                                OrderTiming timing) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        JsonUtil.writeError(out, message);
+        sendTimedResponse(exchange, statusCode, out, timing);
+    }
+
+    private void sendTimedResponse(HttpExchange exchange, int statusCode, JsonWriter body,
+                                   OrderTiming timing) throws IOException {
+        exchange.getResponseHeaders().set("Server-Timing", timing.toHeader());
+        sendResponse(exchange, statusCode, body);
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, JsonWriter body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            body.writeTo(os);
         }
     }
 }
@@ -0,0 +1,149 @@
+package com.demo.order;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates order ids that are unique across nodes without coordination and sort by
+ * creation time.
+ *
+ * <p>Each id is a 63-bit value laid out as 41 bits of milliseconds since 2024-01-01T00:00Z,
+ * 10 bits of node id and a 12-bit per-millisecond sequence, rendered as {@code ORD-}
+ * followed by 13 Crockford base32 digits. The rendering is fixed width, so comparing ids
+ * as strings orders them by creation time, and {@link #lowerBound(Instant)} turns a time
+ * range into an id range.
+ *
+ * <p>Ids are minted with a single compare-and-set. If more than 4096 ids are requested in
+ * one millisecond, or the clock steps backwards, the sequence carries into the timestamp
+ * field, so ids stay strictly increasing per node at the cost of running slightly ahead
+ * of the wall clock.
+ */
+public class OrderIdGenerator {
+
+    public static final String PREFIX = "ORD-";
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long NODE_MASK = (long) MAX_NODE_ID << SEQUENCE_BITS;
+    private static final int ENCODED_DIGITS = 13;
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] DIGIT_VALUES = new int[128];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGIT_VALUES[DIGITS[i]] = i;
+        }
+    }
+
+    private final long nodeBits;
+    // Timestamp and sequence of the last id, packed as (millis << SEQUENCE_BITS) | sequence.
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId id of this instance, 0 to {@value #MAX_NODE_ID}; must be distinct per instance
+     */
+    public OrderIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Returns a new order id.
+     */
+    public String nextId() {
+        return encode(nextValue());
+    }
+
+    long nextValue() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = now > previous ? now : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+        return compose(next);
+    }
+
+    /**
+     * Ensures later ids from this generator sort after the given id, if it was minted by
+     * this node. Used when replaying orders after a restart in case the clock went backwards.
+     */
+    public void advancePast(String orderId) {
+        long value = decode(orderId);
+        if (value < 0 || (value & NODE_MASK) != nodeBits) {
+            return;
+        }
+        long packed = (value >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | (value & SEQUENCE_MASK);
+        last.accumulateAndGet(packed, Math::max);
+    }
+
+    /**
+     * Returns the smallest id any node could mint at the given instant. Ids created in
+     * {@code [from, to)} are exactly those {@code id} with
+     * {@code lowerBound(from) <= id < lowerBound(to)} in string order.
+     */
+    public static String lowerBound(Instant instant) {
+        long millis = Math.max(0L, instant.toEpochMilli() - EPOCH_MILLIS);
+        return encode(millis << (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    /**
+     * Returns the creation time encoded in an id, or null if it was not minted by this generator.
+     */
+    public static Instant creationTime(String orderId) {
+        long value = decode(orderId);
+        return value < 0 ? null : Instant.ofEpochMilli((value >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    /**
+     * Returns the node id encoded in an id, or -1 if it was not minted by this generator.
+     */
+    public static int nodeId(String orderId) {
+        long value = decode(orderId);
+        return value < 0 ? -1 : (int) (value >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    private long compose(long packed) {
+        return (packed >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (packed & SEQUENCE_MASK);
+    }
+
+    private static String encode(long value) {
+        char[] chars = new char[PREFIX.length() + ENCODED_DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = DIGITS[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the 63-bit value of an id, or -1 if the id is not in this generator's format.
+     */
+    private static long decode(String orderId) {
+        if (orderId == null || orderId.length() != PREFIX.length() + ENCODED_DIGITS
+                || !orderId.startsWith(PREFIX)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = PREFIX.length(); i < orderId.length(); i++) {
+            char c = orderId.charAt(i);
+            int digit = c < DIGIT_VALUES.length ? DIGIT_VALUES[c] : -1;
+            // 13 digits hold 65 bits; the leading digit may only carry the low 3 of its 5.
+            if (digit < 0 || (i == PREFIX.length() && digit > 7)) {
+                return -1;
+            }
+            value = value << 5 | digit;
+        }
+        return value;
+    }
+}
@@ -1,30 +1,30 @@
 package com.demo.order;
 
 /**
- * Represents a single line item in an order.
+ * Represents a single line item in an order. Amounts are in cents.
  * Immutable — enriched instances are created after product lookup.
  */
 public class OrderItem {
 
     private final int productId;
     private final String name;
-    private final double price;
+    private final long priceCents;
     private final int quantity;
-    private final double subtotal;
+    private final long subtotalCents;
 
-    public OrderItem(int productId, String name, double price, int quantity, double subtotal) {
+    public OrderItem(int productId, String name, long priceCents, int quantity, long subtotalCents) {
         this.productId = productId;
         this.name = name;
-        this.price = price;
+        this.priceCents = priceCents;
         this.quantity = quantity;
-        this.subtotal = subtotal;
+        this.subtotalCents = subtotalCents;
     }
 
     /**
      * Creates a request-only item with just productId and quantity.
      */
     public static OrderItem fromRequest(int productId, int quantity) {
-        return new OrderItem(productId, null, 0.0, quantity, 0.0);
+        return new OrderItem(productId, null, 0, quantity, 0);
     }
 
     public int getProductId() {
@@ -35,15 +35,15 @@ public class OrderItem {
         return name;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
     }
 
     public int getQuantity() {
         return quantity;
     }
 
-    public double getSubtotal() {
-        return subtotal;
+    public long getSubtotalCents() {
+        return subtotalCents;
     }
 }
@@ -0,0 +1,329 @@
+package com.demo.order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, segmented, append-only log of created orders.
+ *
+ * <p>Each record is {@code [i32 length][i32 crc32][payload]} with an {@link OrderCodec}
+ * payload. Callers encode their record and hand it to a single writer thread, which
+ * gathers everything that arrives within the commit window into one write and one
+ * fsync (group commit). A segment is closed once it reaches the size limit and a new
+ * file is started.
+ *
+ * <p>{@link #recover(Consumer)} must be called once before appending. It memory-maps
+ * each segment in order, replays every intact record, and truncates a torn record
+ * left at the tail of the last segment by a crash.
+ *
+ * <p>If a write fails, the segment is truncated back to where the batch started so
+ * that later batches are not appended behind a torn record; if even that fails, the
+ * log stops accepting appends. A batch whose bytes were written completely but whose
+ * fsync failed is also reported as failed, yet those records may have reached the disk
+ * and will then be replayed on restart, so a client told its order failed may find it
+ * created.
+ */
+public class OrderLog implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_COMMIT_WINDOW = Duration.ofMillis(1);
+
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 4096;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Append CLOSE = new Append(null);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long commitWindowNanos;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+
+    // Owned by the writer thread once recovery has completed.
+    private FileChannel segment;
+    private long segmentIndex;
+    private Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * @param directory     directory holding the segment files; created if missing
+     * @param segmentBytes  size at which a segment is closed and a new one started;
+     *                      segments are memory-mapped on recovery, so at most 1 GiB
+     * @param commitWindow  how long the writer waits for more records before each fsync
+     */
+    public OrderLog(Path directory, long segmentBytes, Duration commitWindow) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segment size must be between 1 and "
+                    + MAX_SEGMENT_BYTES + " bytes: " + segmentBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.commitWindowNanos = commitWindow.toNanos();
+    }
+
+    /**
+     * Replays every intact record in append order, then opens the log for appending.
+     *
+     * @throws IOException if a segment other than the last one is corrupt, a record passes its
+     *                     checksum but is in an unknown encoding version, or on I/O failure
+     */
+    public synchronized void recover(Consumer<Order> replay) throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Order log already recovered");
+        }
+        List<Path> segments = listSegments();
+        long tailEnd = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long intactEnd;
+                try {
+                    intactEnd = replaySegment(mapped, replay);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unreadable order log segment " + path + ": " + e.getMessage(), e);
+                }
+                if (intactEnd < channel.size() && !last) {
+                    throw new IOException("Corrupt order log segment " + path + " at offset " + intactEnd);
+                }
+                tailEnd = intactEnd;
+            }
+        }
+
+        segmentIndex = segments.isEmpty() ? 0 : segmentIndex(segments.get(segments.size() - 1));
+        segment = FileChannel.open(segmentPath(segmentIndex),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segment.truncate(tailEnd);
+        segment.position(tailEnd);
+
+        writer = new Thread(this::writeLoop, "order-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an order for durable storage. The future completes once the record
+     * has been written and fsynced, or fails with an {@link IOException}.
+     */
+    public CompletableFuture<Void> append(Order order) {
+        if (closed || writer == null) {
+            return CompletableFuture.failedFuture(new IOException("Order log is not open"));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        Append append = new Append(encodeRecord(order));
+        queue.add(append);
+        return append.done;
+    }
+
+    /**
+     * Flushes queued records, stops the writer and closes the current segment.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            queue.add(CLOSE);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            segment.close();
+        }
+    }
+
+    private static byte[] encodeRecord(Order order) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + OrderCodec.maxEncodedSize(order));
+        buffer.position(HEADER_BYTES);
+        OrderCodec.encode(order, buffer);
+        int length = buffer.position() - HEADER_BYTES;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+
+        byte[] record = new byte[HEADER_BYTES + length];
+        System.arraycopy(buffer.array(), 0, record, 0, record.length);
+        return record;
+    }
+
+    /**
+     * Replays intact records from a mapped segment and returns the offset where they end.
+     */
+    private long replaySegment(MappedByteBuffer mapped, Consumer<Order> replay) {
+        CRC32 crc = new CRC32();
+        while (mapped.remaining() >= HEADER_BYTES) {
+            int start = mapped.position();
+            int length = mapped.getInt();
+            int expectedCrc = mapped.getInt();
+            if (length <= 0 || length > mapped.remaining()) {
+                return start;
+            }
+            ByteBuffer payload = mapped.slice();
+            payload.limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                return start;
+            }
+            replay.accept(OrderCodec.decode(payload));
+            mapped.position(start + HEADER_BYTES + length);
+        }
+        return mapped.position();
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + commitWindowNanos;
+                while (batch.size() < MAX_BATCH && batch.get(batch.size() - 1) != CLOSE) {
+                    long remaining = deadline - System.nanoTime();
+                    Append next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty() && batch.get(batch.size() - 1) == CLOSE) {
+                batch.remove(batch.size() - 1);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+        }
+        // Fail anything that raced with close().
+        for (Append leftover; (leftover = queue.poll()) != null; ) {
+            if (leftover != CLOSE) {
+                leftover.done.completeExceptionally(new IOException("Order log is closed"));
+            }
+        }
+    }
+
+    private void commit(List<Append> batch) {
+        if (failure != null) {
+            fail(batch, failure);
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).record);
+            total += buffers[i].remaining();
+        }
+        long start = -1;
+        try {
+            if (segment.position() > 0 && segment.position() + total > segmentBytes) {
+                rollSegment();
+            }
+            start = segment.position();
+            long written = 0;
+            while (written < total) {
+                written += segment.write(buffers);
+            }
+            segment.force(false);
+            for (Append append : batch) {
+                append.done.complete(null);
+            }
+        } catch (IOException e) {
+            if (start >= 0) {
+                discardFrom(start, e);
+            }
+            fail(batch, e);
+        }
+    }
+
+    /**
+     * Cuts a partially written batch off the segment. If that fails the log can no
+     * longer be appended to safely, so every later append is rejected.
+     */
+    private void discardFrom(long start, IOException cause) {
+        try {
+            segment.truncate(start);
+            segment.position(start);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            failure = new IOException("Order log failed; appends are disabled", e);
+            System.err.println("Order log failed, rejecting further appends: " + e);
+        }
+    }
+
+    private static void fail(List<Append> batch, IOException e) {
+        for (Append append : batch) {
+            append.done.completeExceptionally(e);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        segment.force(false);
+        segment.close();
+        segmentIndex++;
+        segment = FileChannel.open(segmentPath(segmentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(segments::add);
+            return segments;
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Append {
+
+        final byte[] record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Append(byte[] record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parsed POST /orders body: (productId, quantity) pairs held in primitive arrays.
+ */
+public final class OrderRequest {
+
+    private int[] productIds;
+    private int[] quantities;
+    private int size;
+
+    OrderRequest() {
+        this.productIds = new int[8];
+        this.quantities = new int[8];
+    }
+
+    void add(int productId, int quantity) {
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getProductId(int index) {
+        return productIds[index];
+    }
+
+    public int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Returns request-only order items, in request order.
+     */
+    public List<OrderItem> toItems() {
+        List<OrderItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(OrderItem.fromRequest(productIds[i], quantities[i]));
+        }
+        return items;
+    }
+}
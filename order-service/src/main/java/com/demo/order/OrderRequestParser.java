@@ -0,0 +1,373 @@
+package com.demo.order;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Single-pass tokenizer for POST /orders bodies. Reads bytes straight from the request
+ * stream into an {@link OrderRequest}, without building strings, maps or substrings.
+ *
+ * <p>Accepts {@code {"items":[{"productId":1,"quantity":2}, ...]}} with keys in any order;
+ * unknown keys are skipped. A bare top-level items array is also accepted, as the old
+ * {@link JsonUtil#parseOrderRequest} parser did. Bodies larger than {@code maxBodyBytes}
+ * or with more than {@code maxItems} items are rejected as soon as the limit is crossed.
+ */
+public final class OrderRequestParser {
+
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+    public static final int DEFAULT_MAX_ITEMS = 1000;
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_NESTING = 32;
+
+    private static final byte[] ITEMS = {'i', 't', 'e', 'm', 's'};
+    private static final byte[] PRODUCT_ID = {'p', 'r', 'o', 'd', 'u', 'c', 't', 'I', 'd'};
+    private static final byte[] QUANTITY = {'q', 'u', 'a', 'n', 't', 'i', 't', 'y'};
+
+    private final int maxBodyBytes;
+    private final int maxItems;
+
+    public OrderRequestParser() {
+        this(DEFAULT_MAX_BODY_BYTES, DEFAULT_MAX_ITEMS);
+    }
+
+    /**
+     * @param maxBodyBytes largest accepted request body, in bytes
+     * @param maxItems     largest accepted number of items per order
+     */
+    public OrderRequestParser(int maxBodyBytes, int maxItems) {
+        if (maxBodyBytes <= 0 || maxItems <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxItems = maxItems;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Parses an order request from a stream. Reading stops as soon as more than
+     * {@code maxBodyBytes} have arrived.
+     *
+     * @throws RequestTooLargeException if the body or item count exceeds the limits
+     * @throws IllegalArgumentException if the body is not a valid order request
+     * @throws IOException if reading the stream fails
+     */
+    public OrderRequest parse(InputStream in) throws IOException {
+        return new Cursor(in).parseRequest();
+    }
+
+    /**
+     * Parses an order request from a byte range.
+     *
+     * @throws RequestTooLargeException if the body or item count exceeds the limits
+     * @throws IllegalArgumentException if the body is not a valid order request
+     */
+    public OrderRequest parse(byte[] body, int offset, int length) {
+        try {
+            return parse(new ByteArrayInputStream(body, offset, length));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Thrown when a request body or its item count exceeds the configured limit.
+     */
+    public static class RequestTooLargeException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        public RequestTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Parse state for one request: a buffered byte cursor over the input stream.
+     */
+    private final class Cursor {
+
+        private final InputStream in;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int limit;
+        private long consumed;
+
+        // The most recently read object key, kept so one key can be compared against several names.
+        private final byte[] key = new byte[16];
+        private int keyLength;
+
+        Cursor(InputStream in) {
+            this.in = in;
+        }
+
+        OrderRequest parseRequest() throws IOException {
+            OrderRequest request = new OrderRequest();
+            int c = skipWhitespace();
+            if (c == '[') {
+                parseItems(request);
+            } else if (c == '{') {
+                boolean sawItems = false;
+                pos++;
+                if (skipWhitespace() == '}') {
+                    pos++;
+                } else {
+                    do {
+                        if (keyEquals(ITEMS)) {
+                            parseItems(request);
+                            sawItems = true;
+                        } else {
+                            skipValue(0);
+                        }
+                    } while (nextMember('}'));
+                }
+                if (!sawItems) {
+                    throw invalid();
+                }
+            } else {
+                throw invalid();
+            }
+            if (skipWhitespace() != -1) {
+                throw invalid();
+            }
+            return request;
+        }
+
+        private void parseItems(OrderRequest request) throws IOException {
+            expect('[');
+            if (skipWhitespace() == ']') {
+                pos++;
+                return;
+            }
+            do {
+                if (request.size() == maxItems) {
+                    throw new RequestTooLargeException("Order exceeds maximum of " + maxItems + " items");
+                }
+                parseItem(request);
+            } while (nextMember(']'));
+        }
+
+        private void parseItem(OrderRequest request) throws IOException {
+            expect('{');
+            long productId = Long.MIN_VALUE;
+            long quantity = Long.MIN_VALUE;
+            if (skipWhitespace() == '}') {
+                pos++;
+            } else {
+                do {
+                    if (keyEquals(PRODUCT_ID)) {
+                        productId = readInt();
+                    } else if (lastKeyEquals(QUANTITY)) {
+                        quantity = readInt();
+                    } else {
+                        skipValue(0);
+                    }
+                } while (nextMember('}'));
+            }
+            if (productId == Long.MIN_VALUE || quantity == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Each item requires productId and quantity");
+            }
+            request.add((int) productId, (int) quantity);
+        }
+
+        /**
+         * Reads an object key and the following colon, and compares the key to the given name.
+         */
+        private boolean keyEquals(byte[] name) throws IOException {
+            expect('"');
+            keyLength = 0;
+            boolean fits = true;
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw invalid();
+                }
+                if (c == '"') {
+                    break;
+                }
+                if (c == '\\') {
+                    // Escaped keys never match our ASCII names; consume the escaped byte.
+                    read();
+                    fits = false;
+                    continue;
+                }
+                if (keyLength < key.length) {
+                    key[keyLength++] = (byte) c;
+                } else {
+                    fits = false;
+                }
+            }
+            if (!fits) {
+                keyLength = -1;
+            }
+            expect(':');
+            return lastKeyEquals(name);
+        }
+
+        private boolean lastKeyEquals(byte[] name) {
+            if (keyLength != name.length) {
+                return false;
+            }
+            for (int i = 0; i < keyLength; i++) {
+                if (key[i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int readInt() throws IOException {
+            int c = skipWhitespace();
+            boolean negative = c == '-';
+            if (negative) {
+                pos++;
+                c = peek();
+            }
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("productId and quantity must be integers");
+            }
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw new IllegalArgumentException("productId and quantity must be integers");
+                }
+                pos++;
+                c = peek();
+            }
+            if (c == '.' || c == 'e' || c == 'E') {
+                throw new IllegalArgumentException("productId and quantity must be integers");
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("productId and quantity must be integers");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Consumes a separator: returns true after a comma, false after the closing bracket.
+         */
+        private boolean nextMember(char close) throws IOException {
+            int c = skipWhitespace();
+            pos++;
+            if (c == ',') {
+                return true;
+            }
+            if (c == close) {
+                return false;
+            }
+            throw invalid();
+        }
+
+        private void skipValue(int depth) throws IOException {
+            if (depth > MAX_NESTING) {
+                throw invalid();
+            }
+            int c = skipWhitespace();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{') {
+                pos++;
+                if (skipWhitespace() == '}') {
+                    pos++;
+                    return;
+                }
+                do {
+                    keyEquals(ITEMS);
+                    skipValue(depth + 1);
+                } while (nextMember('}'));
+            } else if (c == '[') {
+                pos++;
+                if (skipWhitespace() == ']') {
+                    pos++;
+                    return;
+                }
+                do {
+                    skipValue(depth + 1);
+                } while (nextMember(']'));
+            } else if (c == '-' || (c >= '0' && c <= '9') || c == 't' || c == 'f' || c == 'n') {
+                // Numbers and literals: consume until a structural character.
+                while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+                    pos++;
+                    c = peek();
+                }
+            } else {
+                throw invalid();
+            }
+        }
+
+        private void skipString() throws IOException {
+            pos++;
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw invalid();
+                }
+                if (c == '\\') {
+                    read();
+                } else if (c == '"') {
+                    return;
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (skipWhitespace() != expected) {
+                throw invalid();
+            }
+            pos++;
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c = peek();
+            while (isWhitespace(c)) {
+                pos++;
+                c = peek();
+            }
+            return c;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            if (c != -1) {
+                pos++;
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            return buf[pos] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buf, 0, buf.length);
+            if (n <= 0) {
+                return false;
+            }
+            consumed += n;
+            if (consumed > maxBodyBytes) {
+                throw new RequestTooLargeException(
+                        "Request body exceeds maximum of " + maxBodyBytes + " bytes");
+            }
+            pos = 0;
+            limit = n;
+            return true;
+        }
+
+        private IllegalArgumentException invalid() {
+            return new IllegalArgumentException("Invalid request body");
+        }
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
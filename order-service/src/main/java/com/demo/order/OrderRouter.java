@@ -0,0 +1,172 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes /orders requests to order-service shards.
+ * GET /orders/{id} goes to the shard named in the id (see {@link ShardIdGenerator}) and
+ * is answered 404 without any upstream call when the id names no shard;
+ * POST /orders and POST /orders/batch are spread round-robin. Batches are streamed
+ * through in both directions.
+ */
+public class OrderRouter implements HttpHandler {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(5000);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(15000);
+
+    private final List<String> shards;
+    private final HttpClient httpClient;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    /**
+     * @param shards shard base URLs, e.g. {@code http://localhost:8091}, in the order the
+     *               shards were started with
+     */
+    public OrderRouter(List<String> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (new HashSet<>(shards).size() != shards.size()) {
+            throw new IllegalArgumentException("Shards must be distinct: " + shards);
+        }
+        this.shards = List.copyOf(shards);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if ("/orders".equals(path) && "POST".equals(method)) {
+                forward(exchange, nextShard());
+            } else if ("/orders/batch".equals(path) && "POST".equals(method)) {
+                forwardBatch(exchange, nextShard());
+            } else if (path.startsWith("/orders/") && "GET".equals(method)) {
+                forwardGet(exchange, path.substring("/orders/".length()));
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } catch (IOException e) {
+            System.err.println("Error calling order shard: " + e.getMessage());
+            sendError(exchange, 502, "Order shard unavailable");
+        } catch (Exception e) {
+            System.err.println("Unexpected error: " + e.getMessage());
+            sendError(exchange, 500, "Internal server error");
+        }
+    }
+
+    private void forward(HttpExchange exchange, String shard) throws IOException {
+        reply(exchange, send(exchange, shard));
+    }
+
+    private void forwardGet(HttpExchange exchange, String orderId) throws IOException {
+        int shard = ShardIdGenerator.shardOf(orderId, shards.size());
+        if (shard < 0) {
+            sendError(exchange, 404, "Order not found");
+            return;
+        }
+        forward(exchange, shards.get(shard));
+    }
+
+    private HttpResponse<byte[]> send(HttpExchange exchange, String shard) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(shard + exchange.getRequestURI()))
+                .timeout(REQUEST_TIMEOUT);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        if ("POST".equals(exchange.getRequestMethod())) {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            request.POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            request.GET();
+        }
+
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling order shard");
+        }
+    }
+
+    private void reply(HttpExchange exchange, HttpResponse<byte[]> response) throws IOException {
+        response.headers().firstValue("Content-Type")
+                .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+        response.headers().firstValue("Server-Timing")
+                .ifPresent(value -> exchange.getResponseHeaders().set("Server-Timing", value));
+        byte[] body = response.body();
+        exchange.sendResponseHeaders(response.statusCode(), body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private String nextShard() {
+        return shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+    }
+
+    /**
+     * Forwards a batch without buffering it or its results, and without the per-request
+     * timeout, since a large batch legitimately takes longer than a single order.
+     */
+    private void forwardBatch(HttpExchange exchange, String shard) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(shard + exchange.getRequestURI()))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(exchange::getRequestBody))
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling order shard");
+        }
+
+        response.headers().firstValue("Content-Type")
+                .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+        exchange.sendResponseHeaders(response.statusCode(), 0);
+        byte[] buffer = new byte[8192];
+        try (InputStream in = response.body(); OutputStream os = exchange.getResponseBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                os.write(buffer, 0, n);
+                // Pass each result chunk on as it arrives rather than when the buffer fills.
+                if (in.available() == 0) {
+                    os.flush();
+                }
+            }
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        JsonUtil.writeError(out, message);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, out.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            out.writeTo(os);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point for a sharded order service. Listens on port 8082 and forwards /orders
+ * requests to the shards listed in {@code order.shards}, a comma-separated list of
+ * base URLs. Each shard is an {@link OrderServer} started with the same list.
+ *
+ * <p>Order ids name the shard by its position in the list, so the list may only grow at the
+ * end; reordering or removing entries sends lookups for existing orders to the wrong shard.
+ */
+public class OrderRouterServer {
+
+    private static final int DEFAULT_PORT = 8082;
+    private static final int DEFAULT_EXECUTOR_THREADS = 64;
+
+    public static void main(String[] args) throws IOException {
+        String shardList = System.getProperty("order.shards");
+        if (shardList == null || shardList.isBlank()) {
+            throw new IllegalArgumentException("order.shards must list the shard base URLs");
+        }
+        List<String> shards = parseShards(shardList);
+        int port = Integer.getInteger("order.router.port", DEFAULT_PORT);
+
+        String executorMode = System.getProperty("order.executor", "virtual");
+        int executorThreads = Integer.getInteger("order.executor.threads", DEFAULT_EXECUTOR_THREADS);
+
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        Metrics metrics = new Metrics();
+        OrderRouter router = new OrderRouter(shards);
+        server.createContext("/orders", new InstrumentedHandler("/orders", router, metrics));
+        server.createContext("/orders/batch", new InstrumentedHandler("/orders/batch", router, metrics));
+        server.createContext("/metrics", new MetricsHandler(metrics));
+        server.setExecutor(ServerExecutors.create(executorMode, executorThreads));
+        server.start();
+
+        System.out.println("Order Router started on port " + port + " for shards " + shards
+                + " (executor: " + ServerExecutors.describe(executorMode, executorThreads) + ")");
+    }
+
+    /**
+     * Splits a comma-separated shard list, dropping blanks and trailing slashes.
+     */
+    static List<String> parseShards(String shardList) {
+        List<String> shards = new ArrayList<>();
+        for (String shard : shardList.split(",")) {
+            String trimmed = shard.trim();
+            while (trimmed.endsWith("/")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 1);
+            }
+            if (!trimmed.isEmpty()) {
+                shards.add(trimmed);
+            }
+        }
+        return shards;
+    }
+}
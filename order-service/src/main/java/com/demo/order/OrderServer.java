@@ -4,25 +4,238 @@ import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Main entry point for the order service.
- * Starts an HTTP server on port 8082 and registers order handlers.
+ * Starts an HTTP server on port 8082 (or {@code order.port}) and registers order handlers.
+ * When {@code order.shards} and {@code order.shard.self} are set, the instance runs as one
+ * shard behind an {@link OrderRouterServer} and mints ids that name it; its node id is then
+ * its position in {@code order.shards}.
  */
 public class OrderServer {
 
     private static final int DEFAULT_PORT = 8082;
+    private static final int DEFAULT_EXECUTOR_THREADS = 64;
+    private static final int DEFAULT_HTTP_POOL_SIZE = 64;
+    private static final long DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS = 30;
 
     public static void main(String[] args) throws IOException {
-        ProductClient productClient = new ProductClient();
-        OrderService orderService = new OrderService(productClient);
-        OrderHandler orderHandler = new OrderHandler(orderService);
+        // The JDK HTTP client reads its pool settings once per process, when the first client
+        // is built, and applies them to every client in the process: the product client and
+        // the catalog replica alike. Values given directly as jdk.httpclient.* properties on
+        // the command line win.
+        setIfAbsent("jdk.httpclient.connectionPoolSize",
+                String.valueOf(Integer.getInteger("order.productClient.poolSize", DEFAULT_HTTP_POOL_SIZE)));
+        setIfAbsent("jdk.httpclient.keepalive.timeout",
+                String.valueOf(Long.getLong("order.productClient.idleTimeoutSeconds", DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS)));
 
-        HttpServer server = HttpServer.create(new InetSocketAddress(DEFAULT_PORT), 0);
-        server.createContext("/orders", orderHandler);
-        server.setExecutor(null);
+        ProductClient productClient = new ProductClient("http://localhost:8081",
+                Boolean.parseBoolean(System.getProperty("order.productClient.hedging", "true")),
+                Duration.ofMillis(Long.getLong("order.productClient.minTimeoutMs",
+                        ProductClient.DEFAULT_MIN_TIMEOUT.toMillis())),
+                Duration.ofMillis(Long.getLong("order.productClient.maxTimeoutMs",
+                        ProductClient.DEFAULT_MAX_TIMEOUT.toMillis())),
+                Integer.getInteger("order.productClient.breakerFailures", ProductClient.DEFAULT_BREAKER_FAILURES),
+                Duration.ofMillis(Long.getLong("order.productClient.breakerOpenMs",
+                        ProductClient.DEFAULT_BREAKER_OPEN.toMillis())),
+                Boolean.parseBoolean(System.getProperty("order.productClient.binary", "true")));
+
+        ProductLookup productLookup = productClient;
+        ProductCache productCache = null;
+        if (Boolean.parseBoolean(System.getProperty("order.cache.enabled", "true"))) {
+            productCache = new ProductCache(productClient,
+                    Integer.getInteger("order.cache.maxEntries", ProductCache.DEFAULT_MAX_ENTRIES),
+                    Duration.ofMillis(Long.getLong("order.cache.ttlMs",
+                            ProductCache.DEFAULT_TTL.toMillis())),
+                    Duration.ofMillis(Long.getLong("order.cache.negativeTtlMs",
+                            ProductCache.DEFAULT_NEGATIVE_TTL.toMillis())));
+            productLookup = productCache;
+        }
+
+        CatalogReplica catalogReplica = null;
+        if (Boolean.parseBoolean(System.getProperty("order.replica.enabled", "true"))) {
+            catalogReplica = new CatalogReplica("http://localhost:8081", productLookup,
+                    Duration.ofMillis(Long.getLong("order.replica.refreshMs",
+                            CatalogReplica.DEFAULT_REFRESH_INTERVAL.toMillis())),
+                    Duration.ofMillis(Long.getLong("order.replica.maxStalenessMs",
+                            CatalogReplica.DEFAULT_MAX_STALENESS.toMillis())));
+            productLookup = catalogReplica;
+        }
+
+        OrderLog orderLog = null;
+        String durableDir = System.getProperty("order.durable.dir");
+        if (durableDir != null) {
+            orderLog = new OrderLog(Path.of(durableDir),
+                    Long.getLong("order.durable.segmentBytes", OrderLog.DEFAULT_SEGMENT_BYTES),
+                    Duration.ofNanos(1000 * Long.getLong("order.durable.commitWindowMicros",
+                            OrderLog.DEFAULT_COMMIT_WINDOW.toNanos() / 1000)));
+        }
+
+        OrderStore orderStore = new MemoryOrderStore();
+        TieredOrderStore tieredStore = null;
+        String coldFile = System.getProperty("order.store.coldFile");
+        if (coldFile != null) {
+            tieredStore = new TieredOrderStore(Path.of(coldFile),
+                    Long.getLong("order.store.heapBudgetBytes", TieredOrderStore.DEFAULT_HEAP_BUDGET_BYTES),
+                    Integer.getInteger("order.store.spillThreshold", TieredOrderStore.DEFAULT_SPILL_THRESHOLD));
+            orderStore = tieredStore;
+        }
+
+        long recoveryStart = System.nanoTime();
+        OrderService orderService = new OrderService(productLookup,
+                Integer.getInteger("order.lookup.parallelism", OrderService.DEFAULT_MAX_PARALLEL_LOOKUPS),
+                Duration.ofMillis(Long.getLong("order.lookup.deadlineMs",
+                        OrderService.DEFAULT_ORDER_DEADLINE.toMillis())),
+                orderLog, orderStore,
+                idGenerator());
+        if (orderLog != null) {
+            System.out.println("Recovered " + orderService.orderCount() + " orders from " + durableDir
+                    + " in " + (System.nanoTime() - recoveryStart) / 1_000_000 + " ms");
+        }
+        OrderLog log = orderLog;
+        TieredOrderStore store = tieredStore;
+        if (log != null || store != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (log != null) {
+                    try {
+                        log.close();
+                    } catch (IOException e) {
+                        System.err.println("Error closing order log: " + e.getMessage());
+                    }
+                }
+                if (store != null) {
+                    try {
+                        store.close();
+                    } catch (IOException e) {
+                        System.err.println("Error closing order store: " + e.getMessage());
+                    }
+                }
+            }));
+        }
+        String executorMode = System.getProperty("order.executor", "virtual");
+        int executorThreads = Integer.getInteger("order.executor.threads", DEFAULT_EXECUTOR_THREADS);
+        ExecutorService executor = ServerExecutors.create(executorMode, executorThreads);
+
+        OrderRequestParser requestParser = new OrderRequestParser(
+                Integer.getInteger("order.request.maxBodyBytes", OrderRequestParser.DEFAULT_MAX_BODY_BYTES),
+                Integer.getInteger("order.request.maxItems", OrderRequestParser.DEFAULT_MAX_ITEMS));
+        OrderHandler orderHandler = new OrderHandler(orderService, requestParser,
+                Double.parseDouble(System.getProperty("order.trace.sampleRate", "0")),
+                Long.getLong("order.trace.slowMs", 0),
+                executor);
+
+        // HttpServer writes headers and body separately; with Nagle enabled the body waits
+        // for the peer's delayed ACK, adding ~40 ms to every response.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = Integer.getInteger("order.port", DEFAULT_PORT);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        Metrics metrics = metrics(productClient, productCache, catalogReplica, orderService, tieredStore);
+        server.createContext("/orders", new InstrumentedHandler("/orders", orderHandler, metrics));
+        server.createContext("/orders/batch", new InstrumentedHandler("/orders/batch",
+                new OrderBatchHandler(orderService, requestParser,
+                        Integer.getInteger("order.batch.maxOrders", OrderBatchHandler.DEFAULT_MAX_ORDERS),
+                        Integer.getInteger("order.batch.maxInFlight", OrderBatchHandler.DEFAULT_MAX_IN_FLIGHT)),
+                metrics));
+        server.createContext("/metrics", new MetricsHandler(metrics));
+        if (productCache != null) {
+            server.createContext("/cache/stats", new CacheStatsHandler(productCache));
+        }
+        if (tieredStore != null) {
+            server.createContext("/store/stats", new StoreStatsHandler(tieredStore));
+        }
+        server.setExecutor(executor);
         server.start();
 
-        System.out.println("Order Service started on port " + DEFAULT_PORT);
+        System.out.println("Order Service started on port " + port
+                + " (executor: " + ServerExecutors.describe(executorMode, executorThreads) + ")");
+    }
+
+    /**
+     * Registers the product client, cache, replica and order store figures alongside the
+     * per-route request metrics.
+     */
+    private static Metrics metrics(ProductClient productClient, ProductCache productCache,
+                                   CatalogReplica catalogReplica, OrderService orderService,
+                                   TieredOrderStore tieredStore) {
+        Metrics metrics = new Metrics();
+        metrics.histogram("product_client_request_seconds",
+                "Product service HTTP attempts, hedges included.", productClient.attemptLatency());
+        metrics.counter("product_client_attempts_total", "Product service HTTP attempts.",
+                () -> productClient.stats().getAttempts());
+        metrics.counter("product_client_failures_total", "Attempts that failed, timed out or returned 5xx.",
+                () -> productClient.stats().getFailures());
+        metrics.counter("product_client_hedges_total", "Hedged second attempts sent.",
+                () -> productClient.stats().getHedges());
+        metrics.counter("product_client_hedge_wins_total", "Hedged attempts that answered first.",
+                () -> productClient.stats().getHedgeWins());
+        metrics.counter("product_client_rejections_total", "Lookups failed fast by the open circuit.",
+                () -> productClient.stats().getRejections());
+        metrics.gauge("product_client_circuit_open", "1 while the circuit breaker is open or half-open.",
+                () -> "CLOSED".equals(productClient.stats().getCircuitState()) ? 0 : 1);
+        metrics.gauge("product_client_timeout_milliseconds", "Current adaptive per-attempt timeout.",
+                () -> productClient.stats().getTimeoutNanos() / 1_000_000);
+        if (productCache != null) {
+            metrics.counter("product_cache_hits_total", "Product cache hits.",
+                    () -> productCache.stats().getHits());
+            metrics.counter("product_cache_misses_total", "Product cache misses.",
+                    () -> productCache.stats().getMisses());
+            metrics.counter("product_cache_evictions_total", "Product cache evictions.",
+                    () -> productCache.stats().getEvictions());
+            metrics.counter("product_cache_rejections_total", "Products refused admission by TinyLFU.",
+                    () -> productCache.stats().getRejections());
+            metrics.counter("product_cache_refreshes_total", "Refresh-ahead reloads.",
+                    () -> productCache.stats().getRefreshes());
+            metrics.gauge("product_cache_entries", "Products held in the cache.",
+                    () -> productCache.stats().getSize());
+        }
+        if (catalogReplica != null) {
+            metrics.counter("product_replica_hits_total", "Product lookups answered by the catalog replica.",
+                    () -> catalogReplica.stats().getHits());
+            metrics.counter("product_replica_fallbacks_total",
+                    "Lookups passed on because the id was unknown or the replica stale.",
+                    () -> catalogReplica.stats().getFallbacks());
+            metrics.counter("product_replica_sync_failures_total", "Catalog feed polls that failed.",
+                    () -> catalogReplica.stats().getSyncFailures());
+            metrics.gauge("product_replica_version", "Catalog version held by the replica.",
+                    () -> catalogReplica.stats().getVersion());
+            metrics.gauge("product_replica_age_milliseconds", "Time since the last successful catalog sync.",
+                    () -> catalogReplica.stats().getAgeMillis());
+        }
+        metrics.gauge("orders_stored", "Orders held by this instance.", orderService::orderCount);
+        if (tieredStore != null) {
+            metrics.gauge("order_store_hot_orders", "Orders in the on-heap tier.",
+                    () -> tieredStore.stats().getHotOrders());
+            metrics.gauge("order_store_cold_orders", "Orders spilled to the data file.",
+                    () -> tieredStore.stats().getColdOrders());
+        }
+        return metrics;
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static OrderIdGenerator idGenerator() {
+        String shardList = System.getProperty("order.shards");
+        if (shardList == null || shardList.isBlank()) {
+            return new OrderIdGenerator(Integer.getInteger("order.node.id", 0));
+        }
+        String self = System.getProperty("order.shard.self");
+        if (self == null) {
+            throw new IllegalArgumentException("order.shard.self must be set when order.shards is");
+        }
+        if (System.getProperty("order.node.id") != null) {
+            throw new IllegalArgumentException("order.node.id must not be set when order.shards is;"
+                    + " a shard's node id is its position in order.shards");
+        }
+        return new ShardIdGenerator(OrderRouterServer.parseShards(shardList),
+                OrderRouterServer.parseShards(self).get(0));
     }
 }
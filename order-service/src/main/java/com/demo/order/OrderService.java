@@ -1,60 +1,219 @@
 package com.demo.order;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 /**
  * Core business logic for order creation and retrieval.
- * Validates requests, coordinates with the product service, and stores orders in memory.
+ * Validates requests, coordinates with the product service, and keeps orders in an {@link OrderStore}.
  */
 public class OrderService {
 
-    private final ProductClient productClient;
-    private final Map<String, Order> orders = new ConcurrentHashMap<>();
-    private final AtomicInteger orderCounter = new AtomicInteger(0);
+    public static final int DEFAULT_MAX_PARALLEL_LOOKUPS = 8;
+    public static final Duration DEFAULT_ORDER_DEADLINE = Duration.ofSeconds(10);
 
-    public OrderService(ProductClient productClient) {
-        this.productClient = productClient;
+    private final ProductLookup productLookup;
+    private final int maxParallelLookups;
+    private final Duration orderDeadline;
+    private final OrderLog orderLog;
+    private final OrderStore orders;
+    private final OrderIdGenerator idGenerator;
+
+    public OrderService(ProductLookup productLookup) {
+        this(productLookup, DEFAULT_MAX_PARALLEL_LOOKUPS, DEFAULT_ORDER_DEADLINE);
+    }
+
+    /**
+     * @param productLookup      source of product details
+     * @param maxParallelLookups maximum product lookups in flight for one order
+     * @param orderDeadline      overall time budget for all lookups of one order
+     */
+    public OrderService(ProductLookup productLookup, int maxParallelLookups, Duration orderDeadline) {
+        this(productLookup, maxParallelLookups, orderDeadline, null);
+    }
+
+    /**
+     * Creates a service whose orders survive restarts. Orders already in the log are
+     * replayed into memory before the constructor returns.
+     *
+     * @param productLookup      source of product details
+     * @param maxParallelLookups maximum product lookups in flight for one order
+     * @param orderDeadline      overall time budget for all lookups of one order
+     * @param orderLog           durable log every created order is written to, or null
+     * @throws UncheckedIOException if the log cannot be recovered
+     */
+    public OrderService(ProductLookup productLookup, int maxParallelLookups, Duration orderDeadline,
+                        OrderLog orderLog) {
+        this(productLookup, maxParallelLookups, orderDeadline, orderLog, new MemoryOrderStore());
+    }
+
+    /**
+     * Creates a service that keeps orders in the given store. Orders already in the log,
+     * if any, are replayed into the store before the constructor returns.
+     *
+     * @param productLookup      source of product details
+     * @param maxParallelLookups maximum product lookups in flight for one order
+     * @param orderDeadline      overall time budget for all lookups of one order
+     * @param orderLog           durable log every created order is written to, or null
+     * @param orderStore         where created and recovered orders are kept
+     * @throws UncheckedIOException if the log cannot be recovered
+     */
+    public OrderService(ProductLookup productLookup, int maxParallelLookups, Duration orderDeadline,
+                        OrderLog orderLog, OrderStore orderStore) {
+        this(productLookup, maxParallelLookups, orderDeadline, orderLog, orderStore, new OrderIdGenerator(0));
+    }
+
+    /**
+     * Creates a service that mints order ids with the given generator. Instances sharing
+     * an order space must use generators with distinct node ids.
+     *
+     * @param productLookup      source of product details
+     * @param maxParallelLookups maximum product lookups in flight for one order
+     * @param orderDeadline      overall time budget for all lookups of one order
+     * @param orderLog           durable log every created order is written to, or null
+     * @param orderStore         where created and recovered orders are kept
+     * @param idGenerator        source of order ids
+     * @throws UncheckedIOException if the log cannot be recovered
+     */
+    public OrderService(ProductLookup productLookup, int maxParallelLookups, Duration orderDeadline,
+                        OrderLog orderLog, OrderStore orderStore, OrderIdGenerator idGenerator) {
+        if (maxParallelLookups <= 0) {
+            throw new IllegalArgumentException(
+                    "Max parallel lookups must be positive: " + maxParallelLookups);
+        }
+        this.productLookup = productLookup;
+        this.maxParallelLookups = maxParallelLookups;
+        this.orderDeadline = orderDeadline;
+        this.orderLog = orderLog;
+        this.orders = orderStore;
+        this.idGenerator = idGenerator;
+        if (orderLog != null) {
+            try {
+                orderLog.recover(this::restore);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not recover order log", e);
+            }
+        }
     }
 
     /**
      * Creates a new order from request items.
      * Validates input, looks up each product, computes subtotals and total.
+     * Product lookups for the order run concurrently, at most {@code maxParallelLookups} at a time.
      *
      * @param requestItems items with only productId and quantity set
      * @return the fully populated Order
      * @throws IllegalArgumentException if items list is null or empty
      * @throws ProductClient.ProductNotFoundException if any product ID is invalid
-     * @throws IOException if the product service call fails
+     * @throws IOException if the product service call fails, the order deadline passes,
+     *                     or the order cannot be written to the order log
      */
     public Order createOrder(List<OrderItem> requestItems) throws IOException {
+        return createOrder(requestItems, new OrderTiming());
+    }
+
+    /**
+     * Creates a new order as {@link #createOrder(List)} does, adding the time spent
+     * looking up products, computing totals and persisting the order to {@code timing}.
+     */
+    public Order createOrder(List<OrderItem> requestItems, OrderTiming timing) throws IOException {
+        try {
+            return createOrderAsync(requestItems, timing).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while creating order");
+        } catch (ExecutionException e) {
+            throw failure(e.getCause());
+        }
+    }
+
+    /**
+     * Creates a new order without blocking the calling thread. The future fails with the
+     * exceptions {@link #createOrder(List)} throws.
+     *
+     * <p>Dependent stages run on whichever thread completed the last step: a product
+     * lookup, the order log writer or the caller itself when every product was cached.
+     * Callers that do blocking work on completion should hop to their own executor.
+     *
+     * @param requestItems items with only productId and quantity set
+     * @param timing       receives the lookup, compute and persist phase times
+     * @return a future of the fully populated Order
+     */
+    public CompletableFuture<Order> createOrderAsync(List<OrderItem> requestItems, OrderTiming timing) {
+        return createOrderAsync(requestItems, timing, productLookup::getProductInfoAsync);
+    }
+
+    /**
+     * Starts a batch of orders that share product lookups: each product is looked up
+     * at most once for the whole batch, however many of its orders contain it.
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    private CompletableFuture<Order> createOrderAsync(List<OrderItem> requestItems, OrderTiming timing,
+                                                      IntFunction<CompletableFuture<ProductInfo>> lookup) {
         if (requestItems == null || requestItems.isEmpty()) {
-            throw new IllegalArgumentException("Order must contain at least one item");
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Order must contain at least one item"));
         }
 
-        List<OrderItem> enrichedItems = new ArrayList<>();
-        double total = 0.0;
+        long lookupStart = System.nanoTime();
+        return lookupProducts(requestItems, lookup)
+                .whenComplete((products, error) -> timing.record(OrderTiming.Phase.LOOKUP, lookupStart))
+                .thenCompose(products -> {
+                    long t = System.nanoTime();
+                    Order order = buildOrder(requestItems, products);
+                    long persistStart = timing.record(OrderTiming.Phase.COMPUTE, t);
+                    CompletableFuture<Void> durable = orderLog != null
+                            ? orderLog.append(order)
+                            : CompletableFuture.completedFuture(null);
+                    return durable
+                            .thenApply(ignored -> {
+                                orders.put(order);
+                                return order;
+                            })
+                            .whenComplete((stored, error) ->
+                                    timing.record(OrderTiming.Phase.PERSIST, persistStart));
+                });
+    }
+
+    private Order buildOrder(List<OrderItem> requestItems, List<ProductInfo> products) {
+        List<OrderItem> enrichedItems = new ArrayList<>(requestItems.size());
+        long total = 0;
 
-        for (OrderItem item : requestItems) {
-            Map<String, String> product = productClient.getProduct(item.getProductId());
-            String name = product.get("name");
-            double price = Double.parseDouble(product.get("price"));
-            double subtotal = Math.round(price * item.getQuantity() * 100.0) / 100.0;
+        for (int i = 0; i < requestItems.size(); i++) {
+            OrderItem item = requestItems.get(i);
+            ProductInfo product = products.get(i);
+            String name = product.getName();
+            long price = product.getPriceCents();
+            long subtotal;
+            try {
+                subtotal = Math.multiplyExact(price, item.getQuantity());
+                total = Math.addExact(total, subtotal);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Order total is too large");
+            }
 
             enrichedItems.add(new OrderItem(
                     item.getProductId(), name, price, item.getQuantity(), subtotal));
-            total += subtotal;
         }
 
-        total = Math.round(total * 100.0) / 100.0;
-        String orderId = "ORD-" + orderCounter.incrementAndGet();
-        Order order = new Order(orderId, enrichedItems, total);
-        orders.put(orderId, order);
-        return order;
+        return new Order(idGenerator.nextId(), enrichedItems, total);
     }
 
     /**
@@ -66,4 +225,183 @@ public class OrderService {
     public Order getOrder(String orderId) {
         return orders.get(orderId);
     }
+
+    /**
+     * Returns the number of stored orders.
+     */
+    public int orderCount() {
+        return orders.size();
+    }
+
+    /**
+     * Re-adds an order replayed from the order log and keeps new ids ordered after it.
+     */
+    private void restore(Order order) {
+        orders.put(order);
+        idGenerator.advancePast(order.getOrderId());
+    }
+
+    /**
+     * Looks up the product for every item, completing with results in item order once
+     * all lookups have finished. Failures are reported for the first failing item in
+     * item order, which is the same error a sequential loop would have surfaced.
+     */
+    private CompletableFuture<List<ProductInfo>> lookupProducts(
+            List<OrderItem> requestItems, IntFunction<CompletableFuture<ProductInfo>> lookup) {
+        ProductLookups lookups = new ProductLookups(requestItems, lookup);
+        lookups.result
+                .orTimeout(orderDeadline.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((products, error) -> lookups.cancel());
+        lookups.drain();
+        return lookups.result.handle((products, error) -> {
+            if (error instanceof TimeoutException) {
+                throw new CompletionException(deadlineExceeded());
+            }
+            if (error != null) {
+                throw new CompletionException(error);
+            }
+            return products;
+        });
+    }
+
+    /**
+     * The product lookups of one order. At most {@code maxParallelLookups} are in flight;
+     * each completion launches the next. Launching is serialized through {@code wip} so a
+     * lookup that completes synchronously, such as a cache hit, does not recurse.
+     */
+    private final class ProductLookups {
+
+        final CompletableFuture<List<ProductInfo>> result = new CompletableFuture<>();
+
+        private final List<OrderItem> items;
+        private final IntFunction<CompletableFuture<ProductInfo>> lookup;
+        private final ProductInfo[] products;
+        private final Throwable[] errors;
+        private final CompletableFuture<?>[] inProgress;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private int next;
+
+        ProductLookups(List<OrderItem> items, IntFunction<CompletableFuture<ProductInfo>> lookup) {
+            this.items = items;
+            this.lookup = lookup;
+            this.products = new ProductInfo[items.size()];
+            this.errors = new Throwable[items.size()];
+            this.inProgress = new CompletableFuture<?>[items.size()];
+            this.remaining = new AtomicInteger(items.size());
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (next < items.size() && inFlight.get() < maxParallelLookups && !result.isDone()) {
+                    int index = next++;
+                    inFlight.incrementAndGet();
+                    CompletableFuture<ProductInfo> product = lookup.apply(items.get(index).getProductId());
+                    inProgress[index] = product;
+                    product.whenComplete((info, error) -> onComplete(index, info, error));
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void onComplete(int index, ProductInfo product, Throwable error) {
+            products[index] = product;
+            errors[index] = error;
+            inFlight.decrementAndGet();
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            } else {
+                drain();
+            }
+        }
+
+        private void finish() {
+            for (Throwable error : errors) {
+                if (error != null) {
+                    result.completeExceptionally(
+                            error instanceof CompletionException ? error.getCause() : error);
+                    return;
+                }
+            }
+            result.complete(Arrays.asList(products));
+        }
+
+        void cancel() {
+            for (CompletableFuture<?> lookup : inProgress) {
+                if (lookup != null) {
+                    lookup.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Orders created together, such as one POST /orders/batch request. Product lookups
+     * are shared across the batch; a lookup that fails with an I/O error is dropped so
+     * later orders in the batch retry it, while a missing product stays missing.
+     */
+    public final class Batch {
+
+        private final Map<Integer, CompletableFuture<ProductInfo>> products = new ConcurrentHashMap<>();
+
+        private Batch() {
+        }
+
+        /**
+         * Creates an order as {@link OrderService#createOrderAsync(List, OrderTiming)} does,
+         * reusing product lookups already made for this batch.
+         */
+        public CompletableFuture<Order> createOrderAsync(List<OrderItem> requestItems, OrderTiming timing) {
+            return OrderService.this.createOrderAsync(requestItems, timing, this::lookup);
+        }
+
+        /**
+         * Returns the number of distinct products looked up so far.
+         */
+        public int distinctProducts() {
+            return products.size();
+        }
+
+        private CompletableFuture<ProductInfo> lookup(int productId) {
+            CompletableFuture<ProductInfo> shared = products.get(productId);
+            if (shared == null) {
+                CompletableFuture<ProductInfo> started = new CompletableFuture<>();
+                shared = products.putIfAbsent(productId, started);
+                if (shared == null) {
+                    shared = started;
+                    productLookup.getProductInfoAsync(productId).whenComplete((info, error) -> {
+                        if (error == null) {
+                            started.complete(info);
+                            return;
+                        }
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (!(cause instanceof ProductClient.ProductNotFoundException)) {
+                            products.remove(productId, started);
+                        }
+                        started.completeExceptionally(cause);
+                    });
+                }
+            }
+            // Each order gets its own copy so cancelling one order's lookups leaves the rest intact.
+            return shared.copy();
+        }
+    }
+
+    private IOException deadlineExceeded() {
+        return new IOException("Product lookups exceeded order deadline of "
+                + orderDeadline.toMillis() + " ms");
+    }
+
+    private static IOException failure(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException("Order creation failed", cause);
+    }
 }
@@ -0,0 +1,22 @@
+package com.demo.order;
+
+/**
+ * Storage for created orders, keyed by order ID.
+ */
+public interface OrderStore {
+
+    /**
+     * Stores an order, replacing any order with the same ID.
+     */
+    void put(Order order);
+
+    /**
+     * Returns the order with the given ID, or null if not found.
+     */
+    Order get(String orderId);
+
+    /**
+     * Returns the number of stored orders.
+     */
+    int size();
+}
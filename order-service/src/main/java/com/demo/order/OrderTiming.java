@@ -0,0 +1,112 @@
+package com.demo.order;
+
+/**
+ * Wall-clock time spent in each phase of creating one order, reported in a
+ * {@code Server-Timing} response header and the sampled trace log.
+ *
+ * <p>Phases are recorded one after another, but not all on one thread: parsing and
+ * serialization run on the request thread, while lookup, compute and persist are recorded
+ * from HttpClient, order-log writer and completion-executor threads as the order's
+ * {@link java.util.concurrent.CompletableFuture} chain advances. The fields are not
+ * synchronized; each write happens-before the next stage of that chain, and so before the
+ * later reads. An instance is not meant to be shared between concurrent requests.
+ */
+public final class OrderTiming {
+
+    /**
+     * The phases of POST /orders, in the order they run.
+     */
+    public enum Phase {
+        PARSE("parse"),
+        LOOKUP("lookup"),
+        COMPUTE("compute"),
+        PERSIST("persist"),
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+
+    /**
+     * Adds the time since {@code since} to the phase and returns the current time,
+     * so consecutive phases can be chained: {@code t = timing.record(PARSE, t)}.
+     */
+    public long record(Phase phase, long since) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - since;
+        return now;
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the time since this timing was created.
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Formats the phases and the total so far as a Server-Timing header value, e.g.
+     * {@code parse;dur=0.012, lookup;dur=1.830, ..., total;dur=1.902}. Durations are in
+     * milliseconds.
+     */
+    public String toHeader() {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            appendMetric(header, phase.metricName, nanos[phase.ordinal()]);
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    /**
+     * Formats the phases as space-separated {@code name=millis} pairs for log lines.
+     */
+    public String toLogFields() {
+        StringBuilder fields = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            fields.append(phase.metricName).append('=');
+            appendMillis(fields, nanos[phase.ordinal()]);
+            fields.append(' ');
+        }
+        fields.append("total=");
+        appendMillis(fields, elapsedNanos());
+        return fields.toString();
+    }
+
+    private static void appendMetric(StringBuilder out, String name, long nanos) {
+        if (out.length() > 0) {
+            out.append(", ");
+        }
+        out.append(name).append(";dur=");
+        appendMillis(out, nanos);
+    }
+
+    /**
+     * Appends nanoseconds as milliseconds with three decimals, without going through
+     * floating point or String.format.
+     */
+    private static void appendMillis(StringBuilder out, long nanos) {
+        long micros = Math.max(0L, nanos) / 1000;
+        out.append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            out.append('0');
+        }
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
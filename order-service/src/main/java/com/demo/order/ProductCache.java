@@ -0,0 +1,283 @@
+package com.demo.order;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded near-cache of product details in front of another {@link ProductLookup}.
+ *
+ * <p>Victims are chosen in approximate LRU order (CLOCK) and a {@link FrequencySketch}
+ * decides admission: once the cache is full, a newly loaded product only replaces the
+ * victim if it has been requested more often recently (TinyLFU). This keeps the popular
+ * part of catalogs far larger than the cache resident instead of letting one-off lookups
+ * flush it.
+ *
+ * <p>Hits take no lock: they read a concurrent map, bump the lock-free sketch and mark
+ * the entry referenced. The cache lock is only held to admit, replace or evict entries.
+ *
+ * <p>Entries expire after a TTL. Frequently requested entries are reloaded in the
+ * background once they pass the refresh-ahead point, so hot products are served from
+ * memory without ever blocking on an expired entry. Not-found responses are cached
+ * for a separate, shorter TTL.
+ */
+public class ProductCache implements ProductLookup {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(5);
+
+    /** Fraction of the TTL after which hot entries are refreshed in the background. */
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+    /** Minimum sketch frequency for an entry to count as hot. */
+    private static final int HOT_FREQUENCY = 3;
+
+    private final ProductLookup delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    // Read without locking; only changed while holding "this".
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // Guarded by "this": cached ids in CLOCK order, the hand at the head.
+    private final ArrayDeque<Integer> clock = new ArrayDeque<>();
+    private final FrequencySketch sketch;
+    private final Map<Integer, CompletableFuture<ProductInfo>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public ProductCache(ProductLookup delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * @param delegate    lookup used on a miss and for refreshes
+     * @param maxEntries  maximum number of cached products, including negative entries
+     * @param ttl         how long a found product is served from the cache
+     * @param negativeTtl how long a not-found result is served from the cache
+     */
+    public ProductCache(ProductLookup delegate, int maxEntries, Duration ttl, Duration negativeTtl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    @Override
+    public ProductInfo getProductInfo(int productId) throws IOException {
+        try {
+            return getProductInfoAsync(productId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while looking up product");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Product lookup failed", cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+        long now = System.nanoTime();
+        sketch.increment(productId);
+        Entry entry = entries.get(productId);
+
+        if (entry == null || now - entry.expiresAt >= 0) {
+            misses.increment();
+            return load(productId);
+        }
+
+        hits.increment();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        if (entry.product == null) {
+            return CompletableFuture.failedFuture(new ProductClient.ProductNotFoundException(productId));
+        }
+        if (now - entry.refreshAt >= 0 && sketch.frequency(productId) >= HOT_FREQUENCY
+                && entry.refreshing.compareAndSet(false, true)) {
+            refreshes.increment();
+            load(productId).whenComplete((product, error) -> entry.refreshing.set(false));
+        }
+        return CompletableFuture.completedFuture(entry.product);
+    }
+
+    /**
+     * Returns a point-in-time snapshot of the cache counters.
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(),
+                refreshes.sum(), entries.size(), maxEntries);
+    }
+
+    /**
+     * Loads a product from the delegate, sharing one call between concurrent loads of the same id.
+     * Each caller gets its own copy of the shared future, so one caller cancelling its copy
+     * leaves the other callers waiting on the same product intact.
+     */
+    private CompletableFuture<ProductInfo> load(int productId) {
+        CompletableFuture<ProductInfo> result = new CompletableFuture<>();
+        CompletableFuture<ProductInfo> existing = inFlight.putIfAbsent(productId, result);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        delegate.getProductInfoAsync(productId).whenComplete((product, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause == null) {
+                store(productId, product, ttlNanos);
+            } else if (cause instanceof ProductClient.ProductNotFoundException) {
+                store(productId, null, negativeTtlNanos);
+            }
+            inFlight.remove(productId, result);
+            if (cause == null) {
+                result.complete(product);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+        return result.copy();
+    }
+
+    private synchronized void store(int productId, ProductInfo product, long ttl) {
+        Entry entry = new Entry(product, System.nanoTime(), ttl);
+        Entry previous = entries.get(productId);
+        if (previous != null) {
+            entry.referenced = previous.referenced;
+            entries.put(productId, entry);
+            return;
+        }
+        if (entries.size() < maxEntries) {
+            entries.put(productId, entry);
+            clock.addLast(productId);
+            return;
+        }
+
+        Integer victim = nextVictim();
+        if (sketch.frequency(productId) > sketch.frequency(victim)) {
+            clock.removeFirst();
+            entries.remove(victim);
+            evictions.increment();
+            entries.put(productId, entry);
+            clock.addLast(productId);
+        } else {
+            rejections.increment();
+        }
+    }
+
+    /**
+     * Advances the CLOCK hand past referenced entries, clearing their flag, and returns
+     * the first unreferenced id, which is left at the head.
+     */
+    private Integer nextVictim() {
+        while (true) {
+            Integer candidate = clock.peekFirst();
+            Entry entry = entries.get(candidate);
+            if (!entry.referenced) {
+                return candidate;
+            }
+            entry.referenced = false;
+            clock.addLast(clock.removeFirst());
+        }
+    }
+
+    private static final class Entry {
+
+        final ProductInfo product;
+        final long expiresAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        // Set by hits without locking, cleared by the CLOCK hand.
+        volatile boolean referenced;
+
+        Entry(ProductInfo product, long loadedAt, long ttl) {
+            this.product = product;
+            this.expiresAt = loadedAt + ttl;
+            this.refreshAt = loadedAt + (long) (ttl * REFRESH_AHEAD_RATIO);
+        }
+    }
+
+    /**
+     * Snapshot of cache counters.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long rejections;
+        private final long refreshes;
+        private final int size;
+        private final int maxEntries;
+
+        Stats(long hits, long misses, long evictions, long rejections, long refreshes,
+              int size, int maxEntries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.refreshes = refreshes;
+            this.size = size;
+            this.maxEntries = maxEntries;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /** Entries removed to make room for a more frequently used product. */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /** Loaded products that were not admitted because the CLOCK victim was more popular. */
+        public long getRejections() {
+            return rejections;
+        }
+
+        public long getRefreshes() {
+            return refreshes;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+}
@@ -1,68 +1,365 @@
 package com.demo.order;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * HTTP client that calls the product service to look up product details by ID.
+ * Connections are pooled and kept alive between lookups. The JDK HTTP client sizes its
+ * pool from the process-wide {@code jdk.httpclient.connectionPoolSize} and
+ * {@code jdk.httpclient.keepalive.timeout} properties, which {@link OrderServer} sets at startup.
+ *
+ * <p>Request timeouts follow the observed latency: each attempt may take
+ * {@value #TIMEOUT_MULTIPLIER}x the recent p99, clamped between {@code minTimeout} and
+ * {@code maxTimeout}. Attempts that time out count as samples of the time they took, so
+ * a latency increase past the current timeout raises the timeout instead of failing every
+ * attempt at the old value. With hedging enabled, a lookup that has not answered by the recent
+ * p95 is sent a second time and the first answer wins. A circuit breaker fails lookups
+ * immediately while the product service keeps failing.
  */
-public class ProductClient {
+public class ProductClient implements ProductLookup {
+
+    public static final Duration DEFAULT_MIN_TIMEOUT = Duration.ofMillis(250);
+    public static final Duration DEFAULT_MAX_TIMEOUT = Duration.ofMillis(5000);
+    public static final int DEFAULT_BREAKER_FAILURES = 5;
+    public static final Duration DEFAULT_BREAKER_OPEN = Duration.ofSeconds(2);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(1000);
+    private static final int TIMEOUT_MULTIPLIER = 5;
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final double TIMEOUT_QUANTILE = 0.99;
+    private static final long MIN_HEDGE_DELAY_NANOS = 1_000_000;
 
     private final String baseUrl;
+    private final HttpClient httpClient;
+    private final boolean hedging;
+    private final String accept;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final CircuitBreaker breaker;
+    private final LatencyTracker latency = new LatencyTracker();
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Metrics.Histogram attemptLatency = new Metrics.Histogram();
 
     public ProductClient() {
         this("http://localhost:8081");
     }
 
     public ProductClient(String baseUrl) {
+        this(baseUrl, true, DEFAULT_MIN_TIMEOUT, DEFAULT_MAX_TIMEOUT, DEFAULT_BREAKER_FAILURES, DEFAULT_BREAKER_OPEN);
+    }
+
+    /**
+     * Creates a client that asks for the binary product encoding.
+     *
+     * @param baseUrl         product service base URL
+     * @param hedging         whether slow lookups are sent a second time
+     * @param minTimeout      lower bound of the adaptive per-attempt timeout
+     * @param maxTimeout      per-attempt timeout before enough latency samples exist, and its upper bound
+     * @param breakerFailures consecutive failures that open the circuit
+     * @param breakerOpen     how long the circuit stays open before a probe is let through
+     */
+    public ProductClient(String baseUrl, boolean hedging, Duration minTimeout, Duration maxTimeout,
+                         int breakerFailures, Duration breakerOpen) {
+        this(baseUrl, hedging, minTimeout, maxTimeout, breakerFailures, breakerOpen, true);
+    }
+
+    /**
+     * Creates a fully configured client.
+     *
+     * @param baseUrl         product service base URL
+     * @param hedging         whether slow lookups are sent a second time
+     * @param minTimeout      lower bound of the adaptive per-attempt timeout
+     * @param maxTimeout      per-attempt timeout before enough latency samples exist, and its upper bound
+     * @param breakerFailures consecutive failures that open the circuit
+     * @param breakerOpen     how long the circuit stays open before a probe is let through
+     * @param binary          whether to ask for the binary {@link ProductCodec} encoding; JSON
+     *                        answers, from product services without it, are still decoded
+     */
+    public ProductClient(String baseUrl, boolean hedging, Duration minTimeout, Duration maxTimeout,
+                         int breakerFailures, Duration breakerOpen, boolean binary) {
+        if (minTimeout.isNegative() || minTimeout.isZero() || maxTimeout.compareTo(minTimeout) < 0) {
+            throw new IllegalArgumentException(
+                    "Timeouts must satisfy 0 < min <= max: " + minTimeout + ", " + maxTimeout);
+        }
         this.baseUrl = baseUrl;
+        this.hedging = hedging;
+        this.accept = binary ? ProductCodec.MEDIA_TYPE + ", application/json;q=0.5" : "application/json";
+        this.minTimeoutNanos = minTimeout.toNanos();
+        this.maxTimeoutNanos = maxTimeout.toNanos();
+        this.breaker = new CircuitBreaker(breakerFailures, breakerOpen);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
     }
 
     /**
      * Looks up a product by ID from the product service.
      *
      * @param productId the product ID to look up
+     * @return the decoded product
+     * @throws ProductNotFoundException if the product service returns 404
+     * @throws IOException if the HTTP call fails, times out or the circuit is open
+     */
+    @Override
+    public ProductInfo getProductInfo(int productId) throws IOException {
+        try {
+            return getProductInfoAsync(productId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling product service");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Product lookup failed", cause);
+        }
+    }
+
+    /**
+     * Looks up a product by ID without blocking the calling thread.
+     * The future fails with {@link ProductNotFoundException} on 404
+     * and with an {@link IOException} if the HTTP call fails, times out
+     * or the circuit is open.
+     *
+     * @param productId the product ID to look up
+     * @return a future of the decoded product
+     */
+    @Override
+    public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+        if (!breaker.tryAcquire()) {
+            rejections.increment();
+            return CompletableFuture.failedFuture(
+                    new IOException("Product service unavailable: circuit open"));
+        }
+
+        CompletableFuture<ProductInfo> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        attempt(productId, result, pending, false);
+
+        long hedgeDelay = hedging ? latency.percentile(HEDGE_QUANTILE) : -1;
+        if (hedgeDelay >= 0) {
+            Executor delayed = CompletableFuture.delayedExecutor(
+                    Math.max(MIN_HEDGE_DELAY_NANOS, hedgeDelay), TimeUnit.NANOSECONDS);
+            delayed.execute(() -> {
+                if (!result.isDone() && breaker.tryAcquire()) {
+                    hedges.increment();
+                    pending.incrementAndGet();
+                    attempt(productId, result, pending, true);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Sends one attempt. The first attempt to answer completes {@code result}; a failure
+     * only completes it once no other attempt is still pending.
+     */
+    private void attempt(int productId, CompletableFuture<ProductInfo> result,
+                         AtomicInteger pending, boolean hedge) {
+        attempts.increment();
+        long start = System.nanoTime();
+        httpClient.sendAsync(request(productId), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    attemptLatency.observe(elapsed);
+                    if (error == null && response.statusCode() < 500) {
+                        breaker.onSuccess();
+                        latency.record(elapsed);
+                        try {
+                            if (result.complete(decode(productId, response)) && hedge) {
+                                hedgeWins.increment();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            result.completeExceptionally(e);
+                        }
+                        return;
+                    }
+                    failures.increment();
+                    if (unwrap(error) instanceof HttpTimeoutException) {
+                        latency.record(elapsed);
+                    }
+                    if (!result.isDone()) {
+                        breaker.onFailure();
+                    }
+                    if (pending.decrementAndGet() == 0) {
+                        if (error == null) {
+                            result.completeExceptionally(new IOException(
+                                    "Product service returned status " + response.statusCode()));
+                        } else {
+                            result.completeExceptionally(unwrap(error));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns counters and the current adaptive settings of this client.
+     */
+    public Stats stats() {
+        return new Stats(attempts.sum(), failures.sum(), hedges.sum(), hedgeWins.sum(), rejections.sum(),
+                breaker.state().name(), latency.percentile(HEDGE_QUANTILE),
+                latency.percentile(TIMEOUT_QUANTILE), timeoutNanos());
+    }
+
+    /**
+     * Returns the latency histogram of individual HTTP attempts, hedges included.
+     */
+    public Metrics.Histogram attemptLatency() {
+        return attemptLatency;
+    }
+
+    /**
+     * Looks up a product by ID and returns it in the legacy map form.
+     *
+     * @param productId the product ID to look up
      * @return a map with keys "id", "name", "price"
      * @throws ProductNotFoundException if the product service returns 404
      * @throws IOException if the HTTP call fails
+     * @deprecated use {@link #getProductInfo(int)}
      */
+    @Deprecated
     public Map<String, String> getProduct(int productId) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection)
-                URI.create(baseUrl + "/products/" + productId).toURL().openConnection();
-        try {
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+        return getProductInfo(productId).toMap();
+    }
 
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 404) {
-                throw new ProductNotFoundException(productId);
-            }
-            if (responseCode != 200) {
-                throw new IOException("Product service returned status " + responseCode);
-            }
+    private HttpRequest request(int productId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/products/" + productId))
+                .timeout(Duration.ofNanos(timeoutNanos()))
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
 
-            String body = readResponseBody(connection);
-            return JsonUtil.parseObject(body);
-        } finally {
-            connection.disconnect();
+    private long timeoutNanos() {
+        long p99 = latency.percentile(TIMEOUT_QUANTILE);
+        if (p99 < 0) {
+            return maxTimeoutNanos;
         }
+        return Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, p99 * TIMEOUT_MULTIPLIER));
     }
 
-    private String readResponseBody(HttpURLConnection connection) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-            return sb.toString();
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException ? error.getCause() : error;
+    }
+
+    private static ProductInfo decode(int productId, HttpResponse<byte[]> response)
+            throws IOException {
+        int responseCode = response.statusCode();
+        if (responseCode == 404) {
+            throw new ProductNotFoundException(productId);
+        }
+        if (responseCode != 200) {
+            throw new IOException("Product service returned status " + responseCode);
+        }
+        byte[] body = response.body();
+        try {
+            boolean binary = response.headers().firstValue("Content-Type")
+                    .map(type -> type.startsWith(ProductCodec.MEDIA_TYPE))
+                    .orElse(false);
+            return binary
+                    ? ProductCodec.decode(body, 0, body.length)
+                    : ProductDecoder.decode(body, 0, body.length);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed product response for id " + productId, e);
+        }
+    }
+
+    /**
+     * Snapshot of request, hedge and circuit breaker counters.
+     */
+    public static final class Stats {
+
+        private final long attempts;
+        private final long failures;
+        private final long hedges;
+        private final long hedgeWins;
+        private final long rejections;
+        private final String circuitState;
+        private final long p95Nanos;
+        private final long p99Nanos;
+        private final long timeoutNanos;
+
+        Stats(long attempts, long failures, long hedges, long hedgeWins, long rejections, String circuitState,
+              long p95Nanos, long p99Nanos, long timeoutNanos) {
+            this.attempts = attempts;
+            this.failures = failures;
+            this.hedges = hedges;
+            this.hedgeWins = hedgeWins;
+            this.rejections = rejections;
+            this.circuitState = circuitState;
+            this.p95Nanos = p95Nanos;
+            this.p99Nanos = p99Nanos;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        /** HTTP requests sent, including hedges. */
+        public long getAttempts() {
+            return attempts;
+        }
+
+        /** Attempts that failed with an I/O error, a timeout or a 5xx status. */
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getHedges() {
+            return hedges;
+        }
+
+        /** Hedges that answered before the original request. */
+        public long getHedgeWins() {
+            return hedgeWins;
+        }
+
+        /** Lookups failed immediately because the circuit was open. */
+        public long getRejections() {
+            return rejections;
+        }
+
+        /** CLOSED, OPEN or HALF_OPEN. */
+        public String getCircuitState() {
+            return circuitState;
+        }
+
+        /** Recent p95 latency in nanoseconds, or -1 before enough samples. */
+        public long getP95Nanos() {
+            return p95Nanos;
+        }
+
+        /** Recent p99 latency in nanoseconds, or -1 before enough samples. */
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        /** Current per-attempt timeout in nanoseconds. */
+        public long getTimeoutNanos() {
+            return timeoutNanos;
         }
     }
 
@@ -71,6 +368,8 @@ public class ProductClient {
      */
     public static class ProductNotFoundException extends RuntimeException {
 
+        private static final long serialVersionUID = 1L;
+
         private final int productId;
 
         public ProductNotFoundException(int productId) {
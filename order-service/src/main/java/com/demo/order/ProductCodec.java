@@ -0,0 +1,49 @@
+package com.demo.order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the product service's binary product encoding, requested with
+ * {@code Accept: application/x-demo-product}. All integers are big-endian.
+ *
+ * <pre>
+ * version u8 (1)
+ * id      i32
+ * price   i64 cents
+ * name    u16 length + UTF-8 bytes
+ * </pre>
+ */
+public final class ProductCodec {
+
+    public static final String MEDIA_TYPE = "application/x-demo-product";
+
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 1 + 4 + 8 + 2;
+
+    private ProductCodec() {
+    }
+
+    /**
+     * Decodes one product from a byte range holding exactly one encoded product.
+     *
+     * @throws IllegalArgumentException if the bytes are not an encoded product
+     */
+    public static ProductInfo decode(byte[] body, int offset, int length) {
+        if (length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Encoded product is truncated");
+        }
+        ByteBuffer in = ByteBuffer.wrap(body, offset, length);
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported product encoding version: " + version);
+        }
+        int id = in.getInt();
+        long priceCents = in.getLong();
+        int nameLength = Short.toUnsignedInt(in.getShort());
+        if (nameLength != in.remaining()) {
+            throw new IllegalArgumentException("Encoded product name length does not match the body");
+        }
+        return new ProductInfo(id, new String(body, in.position(), nameLength, StandardCharsets.UTF_8), priceCents);
+    }
+}
@@ -0,0 +1,281 @@
+package com.demo.order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes a product-service JSON object straight from response bytes into a
+ * {@link ProductInfo}. One pass, no intermediate maps or substrings; the only
+ * allocations are the name string and the result.
+ */
+public final class ProductDecoder {
+
+    /** Mantissas beyond this could overflow once scaled to cents; they take the slow path. */
+    private static final long MAX_FAST_MANTISSA = Long.MAX_VALUE / 100;
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+
+    private ProductDecoder(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Decodes a flat JSON object with "id", "name" and "price" members, in any order.
+     *
+     * @throws IllegalArgumentException if the bytes are not such an object
+     */
+    public static ProductInfo decode(byte[] json, int offset, int length) {
+        return new ProductDecoder(json, offset, length).product();
+    }
+
+    private ProductInfo product() {
+        int id = 0;
+        String name = null;
+        long priceCents = 0;
+        boolean sawId = false;
+        boolean sawPrice = false;
+
+        expect('{');
+        if (skipWhitespace() == '}') {
+            throw invalid();
+        }
+        do {
+            int keyStart = stringStart();
+            int keyEnd = stringEnd(keyStart);
+            expect(':');
+            if (keyIs(keyStart, keyEnd, "id")) {
+                long value = integer();
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw invalid();
+                }
+                id = (int) value;
+                sawId = true;
+            } else if (keyIs(keyStart, keyEnd, "name")) {
+                name = string();
+            } else if (keyIs(keyStart, keyEnd, "price")) {
+                priceCents = cents();
+                sawPrice = true;
+            } else {
+                skipScalar();
+            }
+        } while (nextMember());
+
+        if (!sawId || name == null || !sawPrice) {
+            throw invalid();
+        }
+        return new ProductInfo(id, name, priceCents);
+    }
+
+    private long integer() {
+        skipWhitespace();
+        boolean negative = pos < end && buf[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        int start = pos;
+        long value = 0;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9' && pos - start < 18) {
+            value = value * 10 + (buf[pos++] - '0');
+        }
+        if (pos == start) {
+            throw invalid();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a decimal amount as whole cents. Plain decimals are scaled with integer
+     * arithmetic, rounding half away from zero past the second fraction digit;
+     * exponents and very long numbers go through {@link BigDecimal}.
+     */
+    private long cents() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = pos < end && buf[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        boolean roundUp = false;
+        for (; pos < end; pos++) {
+            byte c = buf[pos];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (!fraction || scale < 2) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        scale++;
+                    }
+                    if (mantissa > MAX_FAST_MANTISSA) {
+                        return slowCents(start);
+                    }
+                } else if (scale == 2) {
+                    roundUp = c >= '5';
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                return slowCents(start);
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw invalid();
+        }
+        long cents = mantissa * (scale == 0 ? 100 : scale == 1 ? 10 : 1) + (roundUp ? 1 : 0);
+        return negative ? -cents : cents;
+    }
+
+    private long slowCents(int start) {
+        pos = start;
+        while (pos < end && "+-.eE0123456789".indexOf(buf[pos]) >= 0) {
+            pos++;
+        }
+        try {
+            return new BigDecimal(new String(buf, start, pos - start, StandardCharsets.US_ASCII))
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw invalid();
+        }
+    }
+
+    private String string() {
+        int start = stringStart();
+        int close = stringEnd(start);
+        boolean escaped = false;
+        for (int i = start; i < close; i++) {
+            if (buf[i] == '\\') {
+                escaped = true;
+                break;
+            }
+        }
+        if (!escaped) {
+            return new String(buf, start, close - start, StandardCharsets.UTF_8);
+        }
+        return unescape(start, close);
+    }
+
+    private String unescape(int start, int close) {
+        StringBuilder sb = new StringBuilder(close - start);
+        int runStart = start;
+        for (int i = start; i < close; i++) {
+            if (buf[i] != '\\') {
+                continue;
+            }
+            sb.append(new String(buf, runStart, i - runStart, StandardCharsets.UTF_8));
+            char c = (char) buf[++i];
+            switch (c) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= close) {
+                        throw invalid();
+                    }
+                    sb.append((char) Integer.parseInt(
+                            new String(buf, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default: sb.append(c);
+            }
+            runStart = i + 1;
+        }
+        sb.append(new String(buf, runStart, close - runStart, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    /**
+     * Consumes an opening quote and returns the index of the first content byte.
+     */
+    private int stringStart() {
+        expect('"');
+        return pos;
+    }
+
+    /**
+     * Advances past the closing quote and returns its index.
+     */
+    private int stringEnd(int start) {
+        for (pos = start; pos < end; pos++) {
+            if (buf[pos] == '\\') {
+                pos++;
+            } else if (buf[pos] == '"') {
+                return pos++;
+            }
+        }
+        throw invalid();
+    }
+
+    private boolean keyIs(int start, int close, String key) {
+        if (close - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (buf[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipScalar() {
+        if (skipWhitespace() == '"') {
+            stringEnd(stringStart());
+            return;
+        }
+        while (pos < end && buf[pos] != ',' && buf[pos] != '}') {
+            if (buf[pos] == '{' || buf[pos] == '[') {
+                throw invalid();
+            }
+            pos++;
+        }
+    }
+
+    private boolean nextMember() {
+        int c = skipWhitespace();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == '}') {
+            return false;
+        }
+        throw invalid();
+    }
+
+    private void expect(char expected) {
+        if (skipWhitespace() != expected) {
+            throw invalid();
+        }
+        pos++;
+    }
+
+    private int skipWhitespace() {
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid product JSON");
+    }
+}
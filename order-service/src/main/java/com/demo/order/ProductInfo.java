@@ -0,0 +1,44 @@
+package com.demo.order;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable product details as returned by the product service, with the price in cents.
+ */
+public final class ProductInfo {
+
+    private final int id;
+    private final String name;
+    private final long priceCents;
+
+    public ProductInfo(int id, String name, long priceCents) {
+        this.id = id;
+        this.name = name;
+        this.priceCents = priceCents;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Returns the legacy map form with keys "id", "name", "price".
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new HashMap<>();
+        map.put("id", String.valueOf(id));
+        map.put("name", name);
+        map.put("price", BigDecimal.valueOf(priceCents, 2).toPlainString());
+        return map;
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.order;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of product details for order creation.
+ * Implemented by the remote {@link ProductClient} and by caches layered in front of it.
+ */
+public interface ProductLookup {
+
+    /**
+     * Looks up a product by ID.
+     *
+     * @param productId the product ID to look up
+     * @return the product details
+     * @throws ProductClient.ProductNotFoundException if the product does not exist
+     * @throws IOException if the lookup fails
+     */
+    ProductInfo getProductInfo(int productId) throws IOException;
+
+    /**
+     * Looks up a product by ID without blocking the calling thread.
+     * The future fails with {@link ProductClient.ProductNotFoundException} if the product
+     * does not exist and with an {@link IOException} if the lookup fails.
+     *
+     * @param productId the product ID to look up
+     * @return a future of the product details
+     */
+    CompletableFuture<ProductInfo> getProductInfoAsync(int productId);
+}
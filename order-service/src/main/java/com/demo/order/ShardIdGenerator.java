@@ -0,0 +1,43 @@
+package com.demo.order;
+
+import java.util.List;
+
+/**
+ * Order id generator for one shard of a sharded order service. The shard's position in the
+ * shard list is used as the node id, so every id it mints names its shard and a router finds
+ * the shard with {@link #shardOf(String, int)} instead of a lookup table or hash ring.
+ *
+ * <p>The shard list is therefore fixed: shards may be appended, but an existing shard must
+ * keep its position, or the orders it created will be looked up on another shard. At most
+ * {@value OrderIdGenerator#MAX_NODE_ID} + 1 shards are supported.
+ */
+public class ShardIdGenerator extends OrderIdGenerator {
+
+    /**
+     * @param shards shard list shared by all shards and the router, in a fixed order
+     * @param self   this shard's entry in the list
+     */
+    public ShardIdGenerator(List<String> shards, String self) {
+        super(position(shards, self));
+    }
+
+    /**
+     * Returns the position of the shard that minted the id, or -1 if the id was not minted
+     * by one of {@code shardCount} shards.
+     */
+    public static int shardOf(String orderId, int shardCount) {
+        int nodeId = nodeId(orderId);
+        return nodeId < shardCount ? nodeId : -1;
+    }
+
+    private static int position(List<String> shards, String self) {
+        int position = shards.indexOf(self);
+        if (position < 0) {
+            throw new IllegalArgumentException("Shard " + self + " is not in the shard list " + shards);
+        }
+        if (position > MAX_NODE_ID) {
+            throw new IllegalArgumentException("At most " + (MAX_NODE_ID + 1) + " shards are supported");
+        }
+        return position;
+    }
+}
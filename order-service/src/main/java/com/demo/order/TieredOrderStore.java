@@ -0,0 +1,349 @@
+package com.demo.order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Two-tier order store. Recent orders stay on the heap; once the hot tier exceeds its
+ * order count or estimated heap budget, the oldest orders are encoded with
+ * {@link OrderCodec} into a memory-mapped data file. The cold tier's index keeps only a
+ * 64-bit hash of each order id and its file offset, in primitive arrays; a hash match is
+ * confirmed against the id stored in the spilled record.
+ *
+ * <p>The data file is a spill area, not a durable copy: it is recreated on every start.
+ * Durability across restarts comes from {@link OrderLog}.
+ */
+public class TieredOrderStore implements OrderStore, Closeable {
+
+    public static final long DEFAULT_HEAP_BUDGET_BYTES = 256L * 1024 * 1024;
+    public static final int DEFAULT_SPILL_THRESHOLD = 1_000_000;
+
+    private static final int CHUNK_BYTES = 64 * 1024 * 1024;
+    private static final int RECORD_HEADER_BYTES = 4;
+
+    private final long heapBudgetBytes;
+    private final int spillThreshold;
+    private final FileChannel file;
+
+    private final Map<String, Order> hot = new ConcurrentHashMap<>();
+    private final Queue<Order> hotOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong hotBytes = new AtomicLong();
+
+    // Guarded by indexLock; replaced with a larger copy when it fills up.
+    private final StampedLock indexLock = new StampedLock();
+    private OffsetIndex coldIndex = new OffsetIndex(0);
+
+    // Guarded by spillLock; chunks is republished as a new array when it grows.
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile long writeOffset;
+
+    private final LongAdder hotGets = new LongAdder();
+    private final LongAdder hotGetNanos = new LongAdder();
+    private final LongAdder coldGets = new LongAdder();
+    private final LongAdder coldGetNanos = new LongAdder();
+
+    /**
+     * @param dataFile        spill file; truncated if it already exists
+     * @param heapBudgetBytes estimated heap the hot tier may use before spilling
+     * @param spillThreshold  number of hot orders above which the oldest are spilled
+     */
+    public TieredOrderStore(Path dataFile, long heapBudgetBytes, int spillThreshold) throws IOException {
+        if (heapBudgetBytes <= 0 || spillThreshold <= 0) {
+            throw new IllegalArgumentException("Heap budget and spill threshold must be positive");
+        }
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.spillThreshold = spillThreshold;
+        Path parent = dataFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void put(Order order) {
+        removeCold(order.getOrderId());
+        if (hot.put(order.getOrderId(), order) == null) {
+            hotOrder.add(order);
+            hotBytes.addAndGet(estimateHeapBytes(order));
+        }
+        if (overBudget() && spillLock.tryLock()) {
+            try {
+                spill();
+            } finally {
+                spillLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Order get(String orderId) {
+        long start = System.nanoTime();
+        Order order = hot.get(orderId);
+        if (order != null) {
+            hotGets.increment();
+            hotGetNanos.add(System.nanoTime() - start);
+            return order;
+        }
+        long offset = coldOffset(orderId);
+        if (offset < 0) {
+            // It may have been spilled between the two lookups.
+            order = hot.get(orderId);
+            offset = order == null ? coldOffset(orderId) : -1;
+            if (offset < 0) {
+                return order;
+            }
+        }
+        order = readCold(offset);
+        coldGets.increment();
+        coldGetNanos.add(System.nanoTime() - start);
+        return order;
+    }
+
+    @Override
+    public int size() {
+        return hot.size() + coldSize();
+    }
+
+    /**
+     * Returns a point-in-time snapshot of tier sizes and GET latencies.
+     */
+    public Stats stats() {
+        return new Stats(hot.size(), hotBytes.get(), coldSize(), writeOffset,
+                hotGets.sum(), hotGetNanos.sum(), coldGets.sum(), coldGetNanos.sum());
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private boolean overBudget() {
+        return hot.size() > spillThreshold || hotBytes.get() > heapBudgetBytes;
+    }
+
+    /**
+     * Moves the oldest hot orders to the data file until the hot tier is back under both limits.
+     * An order is indexed in the cold tier before it leaves the hot tier, so readers never miss it.
+     */
+    private void spill() {
+        while (overBudget()) {
+            Order oldest = hotOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (hot.get(oldest.getOrderId()) != oldest) {
+                continue;
+            }
+            putCold(oldest.getOrderId(), writeCold(oldest));
+            hot.remove(oldest.getOrderId(), oldest);
+            hotBytes.addAndGet(-estimateHeapBytes(oldest));
+        }
+    }
+
+    private long coldOffset(String orderId) {
+        long hash = idHash(orderId);
+        long stamp = indexLock.readLock();
+        try {
+            return coldIndex.get(hash, offset -> orderId.equals(readColdId(offset)));
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    private void putCold(String orderId, long offset) {
+        long hash = idHash(orderId);
+        long stamp = indexLock.writeLock();
+        try {
+            if (coldIndex.isFull()) {
+                coldIndex = coldIndex.resized();
+            }
+            coldIndex.put(hash, offset);
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    private void removeCold(String orderId) {
+        if (coldSize() == 0 || coldOffset(orderId) < 0) {
+            return;
+        }
+        long hash = idHash(orderId);
+        long stamp = indexLock.writeLock();
+        try {
+            coldIndex.remove(hash, offset -> orderId.equals(readColdId(offset)));
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    private int coldSize() {
+        long stamp = indexLock.readLock();
+        try {
+            return coldIndex.size();
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the id, finished with the MurmurHash3 mixer so that the low
+     * bits used as the index slot are well spread.
+     */
+    private static long idHash(String orderId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            h = (h ^ orderId.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private long writeCold(Order order) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + OrderCodec.maxEncodedSize(order));
+        record.position(RECORD_HEADER_BYTES);
+        OrderCodec.encode(order, record);
+        record.putInt(0, record.position() - RECORD_HEADER_BYTES);
+        record.flip();
+        if (record.remaining() > CHUNK_BYTES) {
+            throw new IllegalArgumentException("Order too large to spill: " + order.getOrderId());
+        }
+
+        int chunkOffset = (int) (writeOffset % CHUNK_BYTES);
+        if (chunkOffset + record.remaining() > CHUNK_BYTES) {
+            // Records never straddle chunks; skip to the start of the next one.
+            writeOffset += CHUNK_BYTES - chunkOffset;
+            chunkOffset = 0;
+        }
+        int chunkIndex = (int) (writeOffset / CHUNK_BYTES);
+        MappedByteBuffer chunk = chunk(chunkIndex);
+        chunk.duplicate().position(chunkOffset).put(record);
+
+        long offset = writeOffset;
+        writeOffset += record.limit();
+        return offset;
+    }
+
+    private Order readCold(long offset) {
+        return OrderCodec.decode(coldRecord(offset));
+    }
+
+    private String readColdId(long offset) {
+        return OrderCodec.decodeOrderId(coldRecord(offset));
+    }
+
+    private ByteBuffer coldRecord(long offset) {
+        ByteBuffer chunk = chunks[(int) (offset / CHUNK_BYTES)].duplicate();
+        chunk.position((int) (offset % CHUNK_BYTES) + RECORD_HEADER_BYTES);
+        return chunk;
+    }
+
+    private MappedByteBuffer chunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        try {
+            MappedByteBuffer mapped = file.map(FileChannel.MapMode.READ_WRITE,
+                    (long) index * CHUNK_BYTES, CHUNK_BYTES);
+            MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+            grown[index] = mapped;
+            chunks = grown;
+            return mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map order spill file", e);
+        }
+    }
+
+    /**
+     * Rough retained size of an order and its map and queue entries, in bytes.
+     */
+    static long estimateHeapBytes(Order order) {
+        long bytes = 160 + 2L * order.getOrderId().length();
+        for (OrderItem item : order.getItems()) {
+            bytes += 96 + (item.getName() == null ? 0 : item.getName().length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Snapshot of tier sizes and per-tier GET latency.
+     */
+    public static final class Stats {
+
+        private final int hotOrders;
+        private final long hotBytes;
+        private final int coldOrders;
+        private final long coldFileBytes;
+        private final long hotGets;
+        private final long hotGetNanos;
+        private final long coldGets;
+        private final long coldGetNanos;
+
+        Stats(int hotOrders, long hotBytes, int coldOrders, long coldFileBytes,
+              long hotGets, long hotGetNanos, long coldGets, long coldGetNanos) {
+            this.hotOrders = hotOrders;
+            this.hotBytes = hotBytes;
+            this.coldOrders = coldOrders;
+            this.coldFileBytes = coldFileBytes;
+            this.hotGets = hotGets;
+            this.hotGetNanos = hotGetNanos;
+            this.coldGets = coldGets;
+            this.coldGetNanos = coldGetNanos;
+        }
+
+        public int getHotOrders() {
+            return hotOrders;
+        }
+
+        /** Estimated heap held by hot orders. */
+        public long getHotBytes() {
+            return hotBytes;
+        }
+
+        public int getColdOrders() {
+            return coldOrders;
+        }
+
+        public long getColdFileBytes() {
+            return coldFileBytes;
+        }
+
+        public long getHotGets() {
+            return hotGets;
+        }
+
+        public long getColdGets() {
+            return coldGets;
+        }
+
+        /** Mean GET latency for orders found in the hot tier, in nanoseconds. */
+        public long getHotGetMeanNanos() {
+            return hotGets == 0 ? 0 : hotGetNanos / hotGets;
+        }
+
+        /** Mean GET latency for orders read back from the data file, in nanoseconds. */
+        public long getColdGetMeanNanos() {
+            return coldGets == 0 ? 0 : coldGetNanos / coldGets;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link CatalogReplica} against a stub GET /catalog feed.
+ */
+public class CatalogReplicaTest {
+
+    private static final Duration NO_REFRESH = Duration.ofHours(1);
+    private static final long STARTUP_WAIT_MILLIS = 5000;
+
+    private CatalogReplicaTest() {
+    }
+
+    /**
+     * Runs all catalog replica tests and returns the number of failures.
+     */
+    public static int runAll() {
+        int failures = 0;
+        failures += run("CatalogReplica — delta sync applies only the changed products",
+                CatalogReplicaTest::testDeltaApplied);
+        failures += run("CatalogReplica — 410 on a delta falls back to a full sync",
+                CatalogReplicaTest::testGoneFallsBackToFullSync);
+        failures += run("CatalogReplica — lookups go remote once the replica is stale",
+                CatalogReplicaTest::testStaleFallsBackToRemote);
+        return failures;
+    }
+
+    private static int run(String name, TestCase test) {
+        try {
+            String error = test.execute();
+            if (error == null) {
+                System.out.println("  PASS: " + name);
+                return 0;
+            } else {
+                System.out.println("  FAIL: " + name + " — " + error);
+                return 1;
+            }
+        } catch (Exception e) {
+            System.out.println("  FAIL: " + name + " — Exception: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String testDeltaApplied() throws Exception {
+        StubCatalogFeed feed = new StubCatalogFeed(7);
+        feed.put(new ProductInfo(1, "Laptop", 99999));
+        feed.put(new ProductInfo(2, "Mouse", 2999));
+        CountingLookup remote = new CountingLookup();
+        CatalogReplica replica = new CatalogReplica(feed.baseUrl(), remote, NO_REFRESH, NO_REFRESH);
+        try {
+            if (!awaitVersion(replica, feed.version)) {
+                return "Initial full sync did not complete";
+            }
+
+            feed.clearChanges();
+            feed.put(new ProductInfo(2, "Mouse", 1999));
+            feed.put(new ProductInfo(3, "Keyboard", 7999));
+            replica.sync();
+
+            if (!feed.lastRequest.startsWith("/catalog?since=")) {
+                return "Expected a delta request, got " + feed.lastRequest;
+            }
+            if (replica.stats().getFullSyncs() != 1) {
+                return "Expected only the initial full sync, got " + replica.stats().getFullSyncs();
+            }
+            if (replica.stats().getVersion() != feed.version) {
+                return "Expected version " + feed.version + ", got " + replica.stats().getVersion();
+            }
+            if (replica.getProductInfo(2).getPriceCents() != 1999) {
+                return "Expected the changed price 1999, got " + replica.getProductInfo(2).getPriceCents();
+            }
+            if (!"Keyboard".equals(replica.getProductInfo(3).getName())) {
+                return "Expected the added product to be replicated";
+            }
+            if (!"Laptop".equals(replica.getProductInfo(1).getName())) {
+                return "Expected the unchanged product to be kept";
+            }
+            if (remote.calls.get() != 0) {
+                return "Expected every lookup to be answered locally, " + remote.calls.get() + " went remote";
+            }
+            return null;
+        } finally {
+            replica.close();
+            feed.stop();
+        }
+    }
+
+    private static String testGoneFallsBackToFullSync() throws Exception {
+        StubCatalogFeed feed = new StubCatalogFeed(7);
+        feed.put(new ProductInfo(1, "Laptop", 99999));
+        CountingLookup remote = new CountingLookup();
+        CatalogReplica replica = new CatalogReplica(feed.baseUrl(), remote, NO_REFRESH, NO_REFRESH);
+        try {
+            if (!awaitVersion(replica, feed.version)) {
+                return "Initial full sync did not complete";
+            }
+
+            // The product service restarted with a new epoch and a different catalog.
+            feed.restart(8);
+            feed.put(new ProductInfo(5, "Monitor", 24999));
+            replica.sync();
+
+            if (!feed.requests.get(feed.requests.size() - 2).startsWith("/catalog?since=")
+                    || !"/catalog".equals(feed.lastRequest)) {
+                return "Expected a delta request then a full request, got " + feed.requests;
+            }
+            if (replica.stats().getFullSyncs() != 2) {
+                return "Expected a second full sync, got " + replica.stats().getFullSyncs();
+            }
+            if (!"Monitor".equals(replica.getProductInfo(5).getName())) {
+                return "Expected the new catalog to be replicated";
+            }
+            replica.getProductInfo(1);
+            if (remote.calls.get() != 1) {
+                return "Expected the product missing from the new catalog to be looked up remotely";
+            }
+            return null;
+        } finally {
+            replica.close();
+            feed.stop();
+        }
+    }
+
+    private static String testStaleFallsBackToRemote() throws Exception {
+        StubCatalogFeed feed = new StubCatalogFeed(7);
+        feed.put(new ProductInfo(1, "Laptop", 99999));
+        CountingLookup remote = new CountingLookup();
+        Duration maxStaleness = Duration.ofMillis(300);
+        CatalogReplica replica = new CatalogReplica(feed.baseUrl(), remote, Duration.ofMillis(50), maxStaleness);
+        try {
+            if (!awaitVersion(replica, feed.version)) {
+                return "Initial full sync did not complete";
+            }
+            replica.getProductInfo(1);
+            if (remote.calls.get() != 0) {
+                return "Expected a fresh replica to answer locally";
+            }
+
+            feed.failing = true;
+            Thread.sleep(2 * maxStaleness.toMillis());
+            if (replica.isFresh()) {
+                return "Expected the replica to be stale after syncs failed for " + 2 * maxStaleness.toMillis() + " ms";
+            }
+            ProductInfo product = replica.getProductInfo(1);
+            if (remote.calls.get() != 1 || !"remote".equals(product.getName())) {
+                return "Expected a stale replica to pass the lookup on, remote calls: " + remote.calls.get();
+            }
+
+            feed.failing = false;
+            long deadline = System.currentTimeMillis() + STARTUP_WAIT_MILLIS;
+            while (!replica.isFresh() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            if (!"Laptop".equals(replica.getProductInfo(1).getName())) {
+                return "Expected local answers again once syncs recovered";
+            }
+            return null;
+        } finally {
+            replica.close();
+            feed.stop();
+        }
+    }
+
+    private static boolean awaitVersion(CatalogReplica replica, long version) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_WAIT_MILLIS;
+        while (replica.stats().getVersion() != version) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Fallback lookup that counts calls and answers every id with a product named "remote".
+     */
+    private static final class CountingLookup implements ProductLookup {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ProductInfo getProductInfo(int productId) {
+            calls.incrementAndGet();
+            return new ProductInfo(productId, "remote", 1);
+        }
+
+        @Override
+        public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+            return CompletableFuture.completedFuture(getProductInfo(productId));
+        }
+    }
+
+    /**
+     * Serves the GET /catalog feed from an in-memory catalog. Every {@link #put} bumps the
+     * version and is included in the next delta until {@link #clearChanges()}; after
+     * {@link #restart(long)}, deltas for the old epoch answer 410.
+     */
+    private static final class StubCatalogFeed {
+
+        private final HttpServer server;
+        private final Map<Integer, ProductInfo> catalog = new TreeMap<>();
+        private final Map<Integer, ProductInfo> changes = new TreeMap<>();
+        final List<String> requests = new ArrayList<>();
+        volatile long epoch;
+        volatile long version;
+        volatile boolean failing;
+        volatile String lastRequest;
+
+        StubCatalogFeed(long epoch) throws IOException {
+            this.epoch = epoch;
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/catalog", this::handle);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        synchronized void put(ProductInfo product) {
+            catalog.put(product.getId(), product);
+            changes.put(product.getId(), product);
+            version++;
+        }
+
+        synchronized void clearChanges() {
+            changes.clear();
+        }
+
+        synchronized void restart(long newEpoch) {
+            epoch = newEpoch;
+            catalog.clear();
+            changes.clear();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private synchronized void handle(HttpExchange exchange) throws IOException {
+            String request = exchange.getRequestURI().toString();
+            requests.add(request);
+            lastRequest = request;
+            if (failing) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            Collection<ProductInfo> products = catalog.values();
+            String query = exchange.getRequestURI().getQuery();
+            if (query != null) {
+                if (!query.contains("epoch=" + epoch)) {
+                    exchange.sendResponseHeaders(410, -1);
+                    exchange.close();
+                    return;
+                }
+                products = changes.values();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/x-demo-catalog");
+            exchange.sendResponseHeaders(200, 0);
+            try (DataOutputStream out = new DataOutputStream(exchange.getResponseBody())) {
+                out.writeLong(epoch);
+                out.writeLong(version);
+                out.writeInt(products.size());
+                for (ProductInfo product : products) {
+                    byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(1 + 4 + 8 + 2 + name.length);
+                    out.writeByte(1);
+                    out.writeInt(product.getId());
+                    out.writeLong(product.getPriceCents());
+                    out.writeShort(name.length);
+                    out.write(name);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface TestCase {
+        String execute() throws Exception;
+    }
+}
@@ -0,0 +1,16 @@
+package com.demo.order;
+
+/**
+ * Runs the order service tests that exercise single components in-process, against stub
+ * servers, rather than the running services. The exit status is the number of failures.
+ */
+public class ComponentTestRunner {
+
+    public static void main(String[] args) {
+        System.out.println("=== Order Component Tests ===");
+        int failures = ProductClientTest.runAll();
+        failures += ProductCacheTest.runAll();
+        failures += CatalogReplicaTest.runAll();
+        System.exit(Math.min(failures, 125));
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.order;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ProductCache} in front of a stub lookup whose answers the test completes.
+ */
+public class ProductCacheTest {
+
+    private ProductCacheTest() {
+    }
+
+    /**
+     * Runs all product cache tests and returns the number of failures.
+     */
+    public static int runAll() {
+        int failures = 0;
+        failures += run("ProductCache — one order's deadline leaves a shared lookup to the others",
+                ProductCacheTest::testDeadlineDoesNotCancelSharedLookup);
+        return failures;
+    }
+
+    private static int run(String name, TestCase test) {
+        try {
+            String error = test.execute();
+            if (error == null) {
+                System.out.println("  PASS: " + name);
+                return 0;
+            } else {
+                System.out.println("  FAIL: " + name + " — " + error);
+                return 1;
+            }
+        } catch (Exception e) {
+            System.out.println("  FAIL: " + name + " — Exception: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String testDeadlineDoesNotCancelSharedLookup() throws Exception {
+        PendingLookup delegate = new PendingLookup();
+        ProductCache cache = new ProductCache(delegate);
+        OrderService impatient = new OrderService(cache, 1, Duration.ofMillis(100));
+        OrderService patient = new OrderService(cache, 1, Duration.ofSeconds(10));
+        List<OrderItem> items = List.of(OrderItem.fromRequest(1, 2));
+
+        CompletableFuture<Order> first = impatient.createOrderAsync(items, new OrderTiming());
+        CompletableFuture<Order> second = patient.createOrderAsync(items, new OrderTiming());
+        if (delegate.calls.get() != 1) {
+            return "Expected both orders to share one lookup, got " + delegate.calls.get();
+        }
+
+        // The first order's deadline passes and cancels its lookups while the product is pending.
+        try {
+            first.get(5, TimeUnit.SECONDS);
+            return "Expected the first order to miss its deadline";
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof IOException)) {
+                return "Expected the first order to fail with an IOException, got " + e.getCause();
+            }
+        }
+
+        delegate.pending.complete(new ProductInfo(1, "Laptop", 99999));
+        Order order;
+        try {
+            order = second.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return "Expected the second order to succeed, got " + e.getCause();
+        }
+        if (order.getTotalCents() != 199998) {
+            return "Expected a total of 199998, got " + order.getTotalCents();
+        }
+        return null;
+    }
+
+    /**
+     * Lookup that counts calls and answers every one with the same future, left for the test to complete.
+     */
+    private static final class PendingLookup implements ProductLookup {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<ProductInfo> pending = new CompletableFuture<>();
+
+        @Override
+        public ProductInfo getProductInfo(int productId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<ProductInfo> getProductInfoAsync(int productId) {
+            calls.incrementAndGet();
+            return pending;
+        }
+    }
+
+    @FunctionalInterface
+    interface TestCase {
+        String execute() throws Exception;
+    }
+}
@@ -0,0 +1,136 @@
+package com.demo.order;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for {@link ProductClient} against a stub product service whose latency the test controls.
+ */
+public class ProductClientTest {
+
+    private static final Duration MIN_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration MAX_TIMEOUT = Duration.ofSeconds(5);
+
+    private ProductClientTest() {
+    }
+
+    /**
+     * Runs all product client tests and returns the number of failures.
+     */
+    public static int runAll() {
+        int failures = 0;
+        failures += run("ProductClient — timeout rises when latency jumps past it",
+                ProductClientTest::testTimeoutFollowsLatencyIncrease);
+        return failures;
+    }
+
+    private static int run(String name, TestCase test) {
+        try {
+            String error = test.execute();
+            if (error == null) {
+                System.out.println("  PASS: " + name);
+                return 0;
+            } else {
+                System.out.println("  FAIL: " + name + " — " + error);
+                return 1;
+            }
+        } catch (Exception e) {
+            System.out.println("  FAIL: " + name + " — Exception: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String testTimeoutFollowsLatencyIncrease() throws Exception {
+        StubProductService stub = new StubProductService();
+        try {
+            ProductClient client = new ProductClient(stub.baseUrl(), false, MIN_TIMEOUT, MAX_TIMEOUT,
+                    Integer.MAX_VALUE, Duration.ofSeconds(1), false);
+
+            // Fast answers, enough to fill the latency window, settle the adaptive timeout.
+            for (int i = 0; i < 1200; i++) {
+                client.getProductInfo(1);
+            }
+            Thread.sleep(100);
+            long settled = client.stats().getTimeoutNanos();
+            if (settled >= MAX_TIMEOUT.toNanos() / 2) {
+                return "Expected the timeout to settle well below " + MAX_TIMEOUT.toMillis() + " ms, got "
+                        + settled / 1_000_000 + " ms";
+            }
+
+            // Every attempt now outlasts the timeout the client settled on.
+            stub.delayMillis = 2 * settled / 1_000_000;
+            int timeouts = 0;
+            for (int i = 0; i < 50; i++) {
+                try {
+                    client.getProductInfo(1);
+                    long timeout = client.stats().getTimeoutNanos();
+                    if (timeout <= Duration.ofMillis(stub.delayMillis).toNanos()) {
+                        return "Lookup succeeded but the timeout is only " + timeout / 1_000_000 + " ms";
+                    }
+                    return null;
+                } catch (IOException e) {
+                    timeouts++;
+                }
+            }
+            return "Still timing out after " + timeouts + " attempts; timeout stuck at "
+                    + client.stats().getTimeoutNanos() / 1_000_000 + " ms";
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * Serves GET /products/{id} as JSON after a configurable delay.
+     */
+    private static final class StubProductService {
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        volatile long delayMillis;
+
+        StubProductService() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/products/", exchange -> {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = "{\"id\":1,\"name\":\"Laptop\",\"price\":999.99}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                try {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(body);
+                    }
+                } catch (IOException e) {
+                    // The client gave up on this attempt and closed the connection.
+                }
+                exchange.close();
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    interface TestCase {
+        String execute() throws Exception;
+    }
+}
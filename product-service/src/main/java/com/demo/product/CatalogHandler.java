@@ -0,0 +1,117 @@
+package com.demo.product;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Handles GET /catalog, the replication feed for catalog replicas in other services.
+ *
+ * <p>{@code GET /catalog} returns every product; {@code GET /catalog?since=N&epoch=E}
+ * returns only the products changed after version N, provided E is this repository's
+ * epoch and the change log still reaches back to N. Otherwise it answers 410 and the
+ * replica starts over from a full copy. Both are sent as {@value #MEDIA_TYPE}:
+ *
+ * <pre>
+ * epoch   i64
+ * version i64
+ * count   i32
+ * per product: length i32 + {@link ProductCodec} bytes
+ * </pre>
+ */
+public class CatalogHandler implements HttpHandler {
+
+    public static final String MEDIA_TYPE = "application/x-demo-catalog";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository repository;
+
+    public CatalogHandler(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            if (!"/catalog".equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+
+            String since = null;
+            String epoch = null;
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    if (pair.startsWith("since=")) {
+                        since = pair.substring("since=".length());
+                    } else if (pair.startsWith("epoch=")) {
+                        epoch = pair.substring("epoch=".length());
+                    }
+                }
+            }
+
+            if (since == null) {
+                // Read the version first: products changed meanwhile are resent by the next delta.
+                long version = repository.getVersion();
+                send(exchange, version, repository.findAll());
+                return;
+            }
+
+            ProductRepository.Changes changes;
+            try {
+                changes = epoch != null && Long.parseLong(epoch) == repository.getEpoch()
+                        ? repository.changesSince(Long.parseLong(since))
+                        : null;
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid since or epoch");
+                return;
+            }
+            if (changes == null) {
+                sendError(exchange, 410, "Changes since version " + since + " are not available");
+                return;
+            }
+            send(exchange, changes.getVersion(), changes.getProducts());
+        } catch (Exception e) {
+            System.err.println("Error handling request: " + e.getMessage());
+            sendError(exchange, 500, "Internal server error");
+        }
+    }
+
+    private void send(HttpExchange exchange, long version, List<Product> products) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", MEDIA_TYPE);
+        // A length of 0 tells HttpServer to use chunked transfer encoding.
+        exchange.sendResponseHeaders(200, 0);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(exchange.getResponseBody(), STREAM_BUFFER_SIZE))) {
+            out.writeLong(repository.getEpoch());
+            out.writeLong(version);
+            out.writeInt(products.size());
+            for (Product product : products) {
+                byte[] encoded = ProductCodec.encode(product);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        JsonUtil.writeError(out, message);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, out.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            out.writeTo(os);
+        }
+    }
+}
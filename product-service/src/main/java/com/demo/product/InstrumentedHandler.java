@@ -0,0 +1,39 @@
+package com.demo.product;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+
+/**
+ * Wraps a context handler to record request counts, in-flight requests and handler time.
+ * Requests to the context path itself are reported as that route; anything below it
+ * as {@code <contextPath>/{id}}, which keeps label cardinality fixed.
+ */
+public class InstrumentedHandler implements HttpHandler {
+
+    private final String contextPath;
+    private final HttpHandler delegate;
+    private final Metrics.Route collection;
+    private final Metrics.Route item;
+
+    public InstrumentedHandler(String contextPath, HttpHandler delegate, Metrics metrics) {
+        this.contextPath = contextPath;
+        this.delegate = delegate;
+        this.collection = metrics.route(contextPath);
+        this.item = metrics.route(contextPath + "/{id}");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Metrics.Route route = exchange.getRequestURI().getPath().length() > contextPath.length() + 1
+                ? item : collection;
+        route.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.handle(exchange);
+        } finally {
+            route.end(exchange.getResponseCode(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.product;
+
+/**
+ * Open-addressing hash index from an int key to an int position, with linear probing.
+ * Keys are stored unboxed in parallel arrays, so an entry costs eight bytes plus slack.
+ *
+ * <p>Capacity is fixed per instance; {@link #resized()} returns a larger copy. Entries are
+ * only ever added, never removed, so a reader racing with {@link #put} either sees the new
+ * entry or misses it, but never sees a torn or wrong mapping.
+ */
+final class IntIndex {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // positions[i] holds position + 1 so that zero marks an empty slot.
+    private final int[] keys;
+    private final int[] positions;
+    private final int mask;
+    private int size;
+
+    IntIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new int[capacity];
+        this.positions = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the position stored for the key, or -1 if absent.
+     */
+    int get(int key) {
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int position = positions[i];
+            if (position == 0) {
+                return -1;
+            }
+            if (keys[i] == key) {
+                return position - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds a key that is not yet present. Callers check {@link #isFull()} first.
+     */
+    void put(int key, int position) {
+        int i = mix(key) & mask;
+        while (positions[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        positions[i] = position + 1;
+        size++;
+    }
+
+    boolean isFull() {
+        return size + 1 > keys.length * LOAD_FACTOR;
+    }
+
+    /**
+     * Returns a copy with twice the capacity.
+     */
+    IntIndex resized() {
+        IntIndex copy = new IntIndex(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (positions[i] != 0) {
+                copy.put(keys[i], positions[i] - 1);
+            }
+        }
+        return copy;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
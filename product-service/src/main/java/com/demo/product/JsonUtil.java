@@ -1,51 +1,80 @@
 package com.demo.product;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
- * Minimal hand-rolled JSON serialization for Product objects.
+ * Minimal hand-rolled JSON serialization for Product objects, built on {@link JsonWriter}.
  */
 public final class JsonUtil {
 
+    private static final byte[] ID = "{ \"id\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME = ", \"name\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PRICE = ", \"price\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OBJECT_END = " }".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEPARATOR = ", ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR = "{ \"error\": ".getBytes(StandardCharsets.US_ASCII);
+
     private JsonUtil() {
     }
 
+    /**
+     * Writes a single product as a JSON object.
+     */
+    public static void writeProduct(JsonWriter out, Product product) {
+        out.raw(ID).number(product.getId())
+                .raw(NAME).string(product.getName())
+                .raw(PRICE).cents(product.getPriceCents())
+                .raw(OBJECT_END);
+    }
+
+    /**
+     * Serializes a single product to UTF-8 JSON bytes.
+     */
+    public static byte[] toJsonBytes(Product product) {
+        JsonWriter out = JsonWriter.local();
+        writeProduct(out, product);
+        return out.toByteArray();
+    }
+
     /**
      * Serializes a single product to a JSON object string.
      */
     public static String toJson(Product product) {
-        return "{ \"id\": " + product.getId()
-                + ", \"name\": \"" + escapeJson(product.getName())
-                + "\", \"price\": " + product.getPrice() + " }";
+        JsonWriter out = JsonWriter.local();
+        writeProduct(out, product);
+        return out.toString();
     }
 
     /**
      * Serializes a list of products to a JSON array string.
      */
     public static String toJson(List<Product> products) {
-        StringBuilder sb = new StringBuilder("[");
+        JsonWriter out = JsonWriter.local();
+        out.raw('[');
         for (int i = 0; i < products.size(); i++) {
             if (i > 0) {
-                sb.append(", ");
+                out.raw(SEPARATOR);
             }
-            sb.append(toJson(products.get(i)));
+            writeProduct(out, products.get(i));
         }
-        sb.append("]");
-        return sb.toString();
+        out.raw(']');
+        return out.toString();
     }
 
     /**
-     * Serializes a JSON error object with a single "error" key.
+     * Writes a JSON error object with a single "error" key.
      */
-    public static String errorJson(String message) {
-        return "{ \"error\": \"" + escapeJson(message) + "\" }";
+    public static void writeError(JsonWriter out, String message) {
+        out.raw(ERROR).string(message).raw(OBJECT_END);
     }
 
-    private static String escapeJson(String value) {
-        return value.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    /**
+     * Serializes a JSON error object with a single "error" key.
+     */
+    public static String errorJson(String message) {
+        JsonWriter out = JsonWriter.local();
+        writeError(out, message);
+        return out.toString();
     }
 }
@@ -0,0 +1,219 @@
+package com.demo.product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON writer that encodes UTF-8 straight into a growable byte buffer.
+ * Strings are escaped through a lookup table, and integers and cent amounts are written
+ * digit by digit, so serializing into a reused writer allocates nothing.
+ *
+ * <p>Not thread-safe. Use {@link #local()} for a per-thread instance that is reset on
+ * every call, or create a dedicated instance.
+ */
+public final class JsonWriter {
+
+    private static final int INITIAL_CAPACITY = 512;
+    /** Buffers that grew beyond this are dropped on reset so idle threads don't pin them. */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN_CENTS = "92233720368547758.08".getBytes(StandardCharsets.US_ASCII);
+
+    // 0: copy as-is, 'u': \\u00XX, any other value: backslash followed by that character.
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+    }
+
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int pos;
+
+    /**
+     * Returns this thread's writer, emptied and ready for use.
+     */
+    public static JsonWriter local() {
+        return LOCAL.get().reset();
+    }
+
+    /**
+     * Discards everything written so far.
+     */
+    public JsonWriter reset() {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[INITIAL_CAPACITY];
+        }
+        pos = 0;
+        return this;
+    }
+
+    /**
+     * Writes pre-encoded bytes, such as a literal token or an already serialized value.
+     */
+    public JsonWriter raw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+        return this;
+    }
+
+    /**
+     * Writes a single ASCII character.
+     */
+    public JsonWriter raw(char c) {
+        ensure(1);
+        buf[pos++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes a quoted, escaped JSON string, or {@code null}.
+     */
+    public JsonWriter string(String value) {
+        if (value == null) {
+            return raw(NULL);
+        }
+        // Worst case: every char becomes a six-byte \\u escape, plus the quotes.
+        ensure(value.length() * 6 + 2);
+        byte[] b = buf;
+        int p = pos;
+        b[p++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                if (escape == 0) {
+                    b[p++] = (byte) c;
+                } else if (escape == 'u') {
+                    b[p++] = '\\';
+                    b[p++] = 'u';
+                    b[p++] = '0';
+                    b[p++] = '0';
+                    b[p++] = HEX[c >> 4];
+                    b[p++] = HEX[c & 0xF];
+                } else {
+                    b[p++] = '\\';
+                    b[p++] = escape;
+                }
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?';
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        b[p++] = '"';
+        pos = p;
+        return this;
+    }
+
+    /**
+     * Writes an integer in decimal.
+     */
+    public JsonWriter number(long value) {
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return raw(LONG_MIN);
+            }
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int digits = digitCount(value);
+        int end = pos + digits;
+        for (int p = end - 1; p >= pos; p--) {
+            buf[p] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    /**
+     * Writes an amount of cents as a decimal with exactly two fraction digits.
+     */
+    public JsonWriter cents(long cents) {
+        if (cents < 0) {
+            raw('-');
+            if (cents == Long.MIN_VALUE) {
+                return raw(LONG_MIN_CENTS);
+            }
+            cents = -cents;
+        }
+        number(cents / 100);
+        ensure(3);
+        long fraction = cents % 100;
+        buf[pos++] = '.';
+        buf[pos++] = (byte) ('0' + fraction / 10);
+        buf[pos++] = (byte) ('0' + fraction % 10);
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes written since the last reset.
+     */
+    public int size() {
+        return pos;
+    }
+
+    /**
+     * Copies the written bytes to the stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, pos);
+    }
+
+    /**
+     * Returns a copy of the written bytes.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, pos, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
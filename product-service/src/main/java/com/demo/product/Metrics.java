@@ -0,0 +1,205 @@
+package com.demo.product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics registry rendered in the Prometheus text exposition format.
+ *
+ * <p>Everything on the request path is a {@link LongAdder}, so recording never takes a
+ * lock and threads on different cores update different cells. Per-route instruments are
+ * created once up front. Registration goes through concurrent collections, and rendering
+ * takes no lock either, so a scrape that races with updates may see values from slightly
+ * different moments.
+ */
+public final class Metrics {
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final List<String> routeOrder = new CopyOnWriteArrayList<>();
+    private final List<Family> families = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns the instruments for an HTTP route, creating them on first use.
+     */
+    public Route route(String route) {
+        return routes.computeIfAbsent(route, r -> {
+            routeOrder.add(r);
+            return new Route();
+        });
+    }
+
+    /**
+     * Registers a monotonically increasing value read when metrics are rendered.
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        families.add(new Family(name, help, "counter", value, null));
+    }
+
+    /**
+     * Registers a value that can go up and down, read when metrics are rendered.
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        families.add(new Family(name, help, "gauge", value, null));
+    }
+
+    /**
+     * Registers a histogram owned by another component.
+     */
+    public void histogram(String name, String help, Histogram histogram) {
+        families.add(new Family(name, help, "histogram", null, histogram));
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format, version 0.0.4.
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        List<String> names = new ArrayList<>(routeOrder);
+
+        header(out, "http_requests_total", "Requests handled, by route and status code.", "counter");
+        for (String name : names) {
+            Route route = routes.get(name);
+            for (int status = 0; status < route.byStatus.length(); status++) {
+                LongAdder count = route.byStatus.get(status);
+                if (count != null) {
+                    out.append("http_requests_total{route=\"").append(name).append("\",status=\"")
+                            .append(status == 0 ? "none" : Integer.toString(status)).append("\"} ")
+                            .append(count.sum()).append('\n');
+                }
+            }
+        }
+        header(out, "http_requests_in_flight", "Requests currently being handled, by route.", "gauge");
+        for (String name : names) {
+            out.append("http_requests_in_flight{route=\"").append(name).append("\"} ")
+                    .append(routes.get(name).inFlight.sum()).append('\n');
+        }
+        header(out, "http_request_duration_seconds", "Handler time, by route.", "histogram");
+        for (String name : names) {
+            routes.get(name).latency.render(out, "http_request_duration_seconds", "route=\"" + name + "\"");
+        }
+
+        for (Family family : families) {
+            header(out, family.name, family.help, family.type);
+            if (family.histogram != null) {
+                family.histogram.render(out, family.name, null);
+            } else {
+                out.append(family.name).append(' ').append(family.value.getAsLong()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Request count by status code, in-flight gauge and latency histogram for one route.
+     */
+    public static final class Route {
+
+        private static final int STATUS_SLOTS = 600;
+
+        private final AtomicReferenceArray<LongAdder> byStatus = new AtomicReferenceArray<>(STATUS_SLOTS);
+        private final LongAdder inFlight = new LongAdder();
+        private final Histogram latency = new Histogram();
+
+        Route() {
+        }
+
+        public void begin() {
+            inFlight.increment();
+        }
+
+        /**
+         * Records a finished request. Status codes outside 100-599, such as the -1 of an
+         * exchange that never sent headers, are counted as status "none".
+         */
+        public void end(int status, long nanos) {
+            inFlight.decrement();
+            latency.observe(nanos);
+            int slot = status >= 100 && status < STATUS_SLOTS ? status : 0;
+            LongAdder count = byStatus.get(slot);
+            if (count == null) {
+                byStatus.compareAndSet(slot, null, new LongAdder());
+                count = byStatus.get(slot);
+            }
+            count.increment();
+        }
+    }
+
+    /**
+     * Fixed-bucket latency histogram with Prometheus' default bucket bounds.
+     */
+    public static final class Histogram {
+
+        private static final double[] BOUNDS_SECONDS =
+                {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+        private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+        private static final String[] BOUND_LABELS = new String[BOUNDS_SECONDS.length];
+
+        static {
+            for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+                BOUNDS_NANOS[i] = Math.round(BOUNDS_SECONDS[i] * 1e9);
+                BOUND_LABELS[i] = BigDecimal.valueOf(BOUNDS_SECONDS[i]).stripTrailingZeros().toPlainString();
+            }
+        }
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        public Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(long nanos) {
+            int i = 0;
+            while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+
+        void render(StringBuilder out, String name, String labels) {
+            String prefix = labels == null ? "{" : "{" + labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket").append(prefix).append("le=\"")
+                        .append(i < BOUND_LABELS.length ? BOUND_LABELS[i] : "+Inf")
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            String suffix = labels == null ? "" : "{" + labels + "}";
+            out.append(name).append("_sum").append(suffix).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+        }
+    }
+
+    private static final class Family {
+
+        final String name;
+        final String help;
+        final String type;
+        final LongSupplier value;
+        final Histogram histogram;
+
+        Family(String name, String help, String type, LongSupplier value, Histogram histogram) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.value = value;
+            this.histogram = histogram;
+        }
+    }
+}
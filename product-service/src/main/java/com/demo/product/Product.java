@@ -1,18 +1,18 @@
 package com.demo.product;
 
 /**
- * Represents a product with an id, name, and price.
+ * Represents a product with an id, name, and price in cents.
  */
 public class Product {
 
     private final int id;
     private final String name;
-    private final double price;
+    private final long priceCents;
 
-    public Product(int id, String name, double price) {
+    public Product(int id, String name, long priceCents) {
         this.id = id;
         this.name = name;
-        this.price = price;
+        this.priceCents = priceCents;
     }
 
     public int getId() {
@@ -23,7 +23,7 @@ public class Product {
         return name;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
     }
 }
@@ -0,0 +1,56 @@
+package com.demo.product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link Product}, served instead of JSON to clients
+ * that send {@code Accept: application/x-demo-product}. All integers are big-endian.
+ *
+ * <pre>
+ * version u8 (1)
+ * id      i32
+ * price   i64 cents
+ * name    u16 length + UTF-8 bytes
+ * </pre>
+ */
+public final class ProductCodec {
+
+    public static final String MEDIA_TYPE = "application/x-demo-product";
+
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 1 + 4 + 8 + 2;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private ProductCodec() {
+    }
+
+    /**
+     * Returns whether the product's name fits the encoding's 65535-byte limit.
+     */
+    public static boolean canEncode(Product product) {
+        String name = product.getName();
+        // A char never takes more than three UTF-8 bytes, so short names need no encoding pass.
+        return name.length() * 3 <= MAX_NAME_BYTES
+                || name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+    }
+
+    /**
+     * Encodes a product.
+     *
+     * @throws IllegalArgumentException if the name is longer than 65535 UTF-8 bytes
+     */
+    public static byte[] encode(Product product) {
+        byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Product name too long to encode: " + product.getId());
+        }
+        return ByteBuffer.allocate(HEADER_SIZE + name.length)
+                .put(VERSION)
+                .putInt(product.getId())
+                .putLong(product.getPriceCents())
+                .putShort((short) name.length)
+                .put(name)
+                .array();
+    }
+}
@@ -3,28 +3,50 @@ package com.demo.product;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Handles HTTP requests for /products and /products/{id}.
+ * Responses come from the {@link ProductResponseCache}, pre-serialized for catalogs up to
+ * the buffer limit and serialized on demand above it, and honour If-None-Match.
+ * GET /products accepts {@code limit} and {@code cursor} query parameters for pagination.
+ * GET /products/{id} is answered in the binary {@link ProductCodec} encoding when the
+ * Accept header asks for it, and as JSON otherwise. The full GET /products catalog is
+ * sent gzip- or deflate-compressed when Accept-Encoding allows it and the cache has a
+ * compressed form ready.
  */
 public class ProductHandler implements HttpHandler {
 
-    private final ProductRepository repository;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final ProductResponseCache responses;
+    private final boolean compression;
 
     public ProductHandler(ProductRepository repository) {
-        this.repository = repository;
+        this(repository, ProductResponseCache.DEFAULT_BUFFER_LIMIT, true);
+    }
+
+    /**
+     * @param repository  catalog source
+     * @param bufferLimit largest catalog, in products, served from a single buffer
+     *                    instead of being streamed with chunked encoding
+     * @param compression whether the full catalog may be sent compressed
+     */
+    public ProductHandler(ProductRepository repository, int bufferLimit, boolean compression) {
+        this.responses = new ProductResponseCache(repository, bufferLimit, compression);
+        this.compression = compression;
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
             if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-                sendResponse(exchange, 405, JsonUtil.errorJson("Method not allowed"));
+                sendError(exchange, 405, "Method not allowed");
                 return;
             }
 
@@ -35,17 +57,56 @@ public class ProductHandler implements HttpHandler {
             } else if (path.startsWith("/products/")) {
                 handleGetById(exchange, path);
             } else {
-                sendResponse(exchange, 404, JsonUtil.errorJson("Not found"));
+                sendError(exchange, 404, "Not found");
             }
         } catch (Exception e) {
             System.err.println("Error handling request: " + e.getMessage());
-            sendResponse(exchange, 500, JsonUtil.errorJson("Internal server error"));
+            sendError(exchange, 500, "Internal server error");
         }
     }
 
     private void handleGetAll(HttpExchange exchange) throws IOException {
-        List<Product> products = repository.findAll();
-        sendResponse(exchange, 200, JsonUtil.toJson(products));
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (!query.containsKey("limit") && !query.containsKey("cursor")) {
+            handleGetCatalog(exchange);
+            return;
+        }
+
+        int limit;
+        int offset;
+        try {
+            limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(MAX_PAGE_SIZE)));
+            offset = Integer.parseInt(query.getOrDefault("cursor", "0"));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid limit or cursor");
+            return;
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE || offset < 0) {
+            sendError(exchange, 400,
+                    "limit must be between 1 and " + MAX_PAGE_SIZE + " and cursor must not be negative");
+            return;
+        }
+
+        ProductResponseCache.Page page = responses.page(offset, limit);
+        if (page.getNextOffset() >= 0) {
+            exchange.getResponseHeaders().set("Link",
+                    "</products?limit=" + limit + "&cursor=" + page.getNextOffset() + ">; rel=\"next\"");
+        }
+        sendBytes(exchange, 200, page.getBody());
+    }
+
+    private void handleGetCatalog(HttpExchange exchange) throws IOException {
+        ProductResponseCache.Representation catalog = null;
+        if (compression) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            ProductResponseCache.Encoding encoding =
+                    negotiateEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            catalog = encoding != null ? responses.catalog(encoding) : null;
+            if (catalog != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding.getToken());
+            }
+        }
+        sendRepresentation(exchange, catalog != null ? catalog : responses.catalog(), "application/json");
     }
 
     private void handleGetById(HttpExchange exchange, String path) throws IOException {
@@ -54,20 +115,147 @@ public class ProductHandler implements HttpHandler {
         try {
             id = Integer.parseInt(idStr);
         } catch (NumberFormatException e) {
-            sendResponse(exchange, 400, JsonUtil.errorJson("Invalid product ID"));
+            sendError(exchange, 400, "Invalid product ID");
             return;
         }
 
-        Optional<Product> product = repository.findById(id);
-        if (product.isPresent()) {
-            sendResponse(exchange, 200, JsonUtil.toJson(product.get()));
+        boolean binary = prefersBinary(exchange.getRequestHeaders().getFirst("Accept"));
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        ProductResponseCache.Representation product = binary ? responses.productBinary(id) : null;
+        if (product == null) {
+            binary = false;
+            product = responses.product(id);
+        }
+        if (product != null) {
+            sendRepresentation(exchange, product, binary ? ProductCodec.MEDIA_TYPE : "application/json");
         } else {
-            sendResponse(exchange, 404, JsonUtil.errorJson("Product not found"));
+            sendError(exchange, 404, "Product not found");
+        }
+    }
+
+    /**
+     * Returns true if the Accept header gives the binary product type a non-zero quality at
+     * least as high as JSON's. Wildcards are not matched for the binary type, so only clients
+     * that ask for it by name get it. For JSON, {@code application/*} or else the all-types
+     * range applies when it is not listed itself.
+     */
+    private static boolean prefersBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        double binary = 0;
+        double json = -1;
+        double application = -1;
+        double any = -1;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String type = parts[0].trim();
+            if (type.equalsIgnoreCase(ProductCodec.MEDIA_TYPE)) {
+                binary = quality(parts);
+            } else if (type.equalsIgnoreCase("application/json")) {
+                json = quality(parts);
+            } else if (type.equalsIgnoreCase("application/*")) {
+                application = quality(parts);
+            } else if (type.equals("*/*")) {
+                any = quality(parts);
+            }
+        }
+        json = json >= 0 ? json : application >= 0 ? application : any;
+        return binary > 0 && binary >= json;
+    }
+
+    /**
+     * Picks the content coding for an Accept-Encoding header: whichever of gzip and deflate
+     * has the higher non-zero quality, gzip on a tie, or null to send the body as is.
+     * A {@code *} entry covers the codings not listed by name.
+     */
+    private static ProductResponseCache.Encoding negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = quality(parts);
+            } else if (coding.equalsIgnoreCase("deflate")) {
+                deflate = quality(parts);
+            } else if (coding.equals("*")) {
+                any = quality(parts);
+            }
+        }
+        gzip = gzip >= 0 ? gzip : any;
+        deflate = deflate >= 0 ? deflate : any;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? ProductResponseCache.Encoding.GZIP : ProductResponseCache.Encoding.DEFLATE;
+    }
+
+    /**
+     * Returns the q parameter of a header element split on ';', 1 if absent and 0 if malformed.
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private void sendRepresentation(HttpExchange exchange, ProductResponseCache.Representation representation,
+                                    String contentType) throws IOException {
+        exchange.getResponseHeaders().set("ETag", representation.getEtag());
+        if (representation.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        long length = representation.getLength();
+        // A length of 0 tells HttpServer to use chunked transfer encoding.
+        exchange.sendResponseHeaders(200, length < 0 ? 0 : length);
+        try (OutputStream os = new BufferedOutputStream(exchange.getResponseBody(), STREAM_BUFFER_SIZE)) {
+            representation.writeTo(os);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            } else if (!pair.isEmpty()) {
+                params.put(pair, "");
+            }
+        }
+        return params;
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        JsonWriter out = JsonWriter.local();
+        JsonUtil.writeError(out, message);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, out.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            out.writeTo(os);
         }
     }
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String body) throws IOException {
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    private void sendBytes(HttpExchange exchange, int statusCode, byte[] bytes) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, bytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
@@ -1,42 +1,370 @@
 package com.demo.product;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * In-memory store for products, pre-loaded with the catalog.
+ *
+ * <p>Products are stored in insertion order as columns: primitive arrays of ids, prices
+ * and name offsets and lengths into one UTF-8 byte array holding every name, with an
+ * unboxed {@link IntIndex} from id to row. There is no object per product; reads build
+ * the {@link Product} they return. A product costs about 50 bytes plus its name, against
+ * about 115 bytes when each one was a Product object.
+ *
+ * <p>Reads take no lock. Appends write beyond the published size and then publish a new
+ * snapshot. Replacing a product rewrites its row in place under the write side of a
+ * {@link StampedLock}, and readers validate an optimistic stamp so they never see half a
+ * row. Snapshots share either all row columns or none, so a row read from any snapshot is
+ * consistent with that snapshot's name bytes. Writes are serialized.
+ *
+ * <p>Every change increments the version and is recorded in a bounded change log, so
+ * replicas that are not too far behind can catch up with {@link #changesSince(long)}
+ * instead of copying the whole catalog again.
  */
 public class ProductRepository {
 
-    private final Map<Integer, Product> products = new LinkedHashMap<>();
+    public static final int DEFAULT_CHANGE_LOG_SIZE = 65_536;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_NAME_BYTES = 256;
+    private static final int MAX_NAME_BYTES = Integer.MAX_VALUE - 8;
+
+    private volatile Snapshot snapshot = new Snapshot(new int[INITIAL_CAPACITY], new long[INITIAL_CAPACITY],
+            new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new byte[INITIAL_NAME_BYTES], 0,
+            new IntIndex(INITIAL_CAPACITY));
+    private volatile long version;
+
+    // Held for writing while a row is rewritten in place.
+    private final StampedLock rowLock = new StampedLock();
+
+    // Guarded by "this": bytes of the names array in use, and how many of them belong to replaced names.
+    private int nameBytes;
+    private int deadNameBytes;
+
+    // Distinguishes this repository's versions from those of an earlier process.
+    private final long epoch = new SecureRandom().nextLong() & Long.MAX_VALUE;
+
+    // Ring of the ids changed by the most recent versions: version v changed changedIds[v % length].
+    private final int[] changedIds;
 
     public ProductRepository() {
-        addProduct(new Product(1, "Laptop", 999.99));
-        addProduct(new Product(2, "Mouse", 24.99));
-        addProduct(new Product(3, "Keyboard", 74.99));
-        addProduct(new Product(4, "Monitor", 349.99));
-        addProduct(new Product(5, "Headphones", 149.99));
+        this(DEFAULT_CHANGE_LOG_SIZE);
+    }
+
+    /**
+     * @param changeLogSize number of most recent changes kept for {@link #changesSince(long)}
+     */
+    public ProductRepository(int changeLogSize) {
+        if (changeLogSize <= 0) {
+            throw new IllegalArgumentException("Change log size must be positive: " + changeLogSize);
+        }
+        this.changedIds = new int[changeLogSize];
+        addProduct(new Product(1, "Laptop", 99999));
+        addProduct(new Product(2, "Mouse", 2499));
+        addProduct(new Product(3, "Keyboard", 7499));
+        addProduct(new Product(4, "Monitor", 34999));
+        addProduct(new Product(5, "Headphones", 14999));
+    }
+
+    /**
+     * Creates a repository holding the default products followed by generated ones,
+     * up to {@code catalogSize} products in total. Used for load and capacity testing.
+     */
+    public static ProductRepository withGeneratedCatalog(int catalogSize) {
+        ProductRepository repository = new ProductRepository();
+        for (int id = repository.size() + 1; id <= catalogSize; id++) {
+            repository.addProduct(new Product(id, "Product " + id, 100 + id % 10_000));
+        }
+        return repository;
+    }
+
+    /**
+     * Adds a product, or replaces the product with the same id.
+     */
+    public void save(Product product) {
+        addProduct(product);
+    }
+
+    private synchronized void addProduct(Product product) {
+        byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+        Snapshot current = snapshot;
+        int position = current.index.get(product.getId());
+        if (position >= 0) {
+            replace(current, position, product.getPriceCents(), name);
+            recordChange(product.getId());
+            return;
+        }
+
+        Snapshot next = current;
+        if (next.size == next.ids.length) {
+            next = next.withCapacity(next.ids.length * 2);
+        }
+        if (nameBytes + name.length > next.names.length) {
+            next = withNameRoom(next, name.length);
+        }
+        IntIndex index = next.index;
+        if (index.isFull()) {
+            index = index.resized();
+        }
+        int row = next.size;
+        next.ids[row] = product.getId();
+        next.prices[row] = product.getPriceCents();
+        next.nameOffsets[row] = appendName(next, name);
+        next.nameLengths[row] = name.length;
+        index.put(product.getId(), row);
+        snapshot = new Snapshot(next.ids, next.prices, next.nameOffsets, next.nameLengths, next.names,
+                row + 1, index);
+        recordChange(product.getId());
+    }
+
+    /**
+     * Rewrites a row in place. A name that did not change keeps its bytes; a new name is
+     * appended and the old bytes become dead until the names array is next compacted.
+     */
+    private void replace(Snapshot current, int row, long priceCents, byte[] name) {
+        int offset = current.nameOffsets[row];
+        int length = current.nameLengths[row];
+        boolean sameName = Arrays.equals(current.names, offset, offset + length, name, 0, name.length);
+        if (!sameName && nameBytes + name.length > current.names.length) {
+            // Moves the rows to new arrays, which no reader sees until they are published.
+            Snapshot next = withNameRoom(current, name.length);
+            next.prices[row] = priceCents;
+            next.nameOffsets[row] = appendName(next, name);
+            next.nameLengths[row] = name.length;
+            deadNameBytes += length;
+            snapshot = next;
+            return;
+        }
+
+        long stamp = rowLock.writeLock();
+        try {
+            current.prices[row] = priceCents;
+            if (!sameName) {
+                current.nameOffsets[row] = appendName(current, name);
+                current.nameLengths[row] = name.length;
+                deadNameBytes += length;
+            }
+        } finally {
+            rowLock.unlockWrite(stamp);
+        }
+    }
+
+    private int appendName(Snapshot target, byte[] name) {
+        int offset = nameBytes;
+        System.arraycopy(name, 0, target.names, offset, name.length);
+        nameBytes += name.length;
+        return offset;
+    }
+
+    /**
+     * Returns a copy of the snapshot whose names array has room for {@code extra} more bytes,
+     * dropping the bytes of replaced names if they make up half the array.
+     */
+    private Snapshot withNameRoom(Snapshot current, int extra) {
+        boolean compact = deadNameBytes >= nameBytes / 2;
+        long live = compact ? nameBytes - deadNameBytes : nameBytes;
+        long needed = live + extra;
+        if (needed > MAX_NAME_BYTES) {
+            throw new IllegalStateException("Product names exceed " + MAX_NAME_BYTES + " bytes");
+        }
+        byte[] names = new byte[(int) Math.min(MAX_NAME_BYTES, Math.max(needed, 2L * current.names.length))];
+        Snapshot next = current.withCapacity(current.ids.length, names);
+        if (compact) {
+            int used = 0;
+            for (int row = 0; row < current.size; row++) {
+                System.arraycopy(current.names, current.nameOffsets[row], names, used, current.nameLengths[row]);
+                next.nameOffsets[row] = used;
+                used += current.nameLengths[row];
+            }
+            nameBytes = used;
+            deadNameBytes = 0;
+        } else {
+            System.arraycopy(current.names, 0, names, 0, nameBytes);
+        }
+        return next;
+    }
+
+    private void recordChange(int id) {
+        long next = version + 1;
+        changedIds[(int) (next % changedIds.length)] = id;
+        version = next;
+    }
+
+    /**
+     * Returns the products changed after {@code sinceVersion}, each once in its current
+     * state, together with the version they bring a replica up to. Returns null if the
+     * change log no longer reaches back that far, or if {@code sinceVersion} is newer
+     * than this repository; the replica must then copy the whole catalog.
+     */
+    public synchronized Changes changesSince(long sinceVersion) {
+        long current = version;
+        if (sinceVersion > current || sinceVersion < current - changedIds.length) {
+            return null;
+        }
+        Snapshot products = snapshot;
+        IntIndex seen = new IntIndex((int) (current - sinceVersion));
+        List<Product> changed = new ArrayList<>();
+        for (long v = sinceVersion + 1; v <= current; v++) {
+            int id = changedIds[(int) (v % changedIds.length)];
+            if (seen.get(id) < 0) {
+                seen.put(id, changed.size());
+                changed.add(product(products, products.index.get(id)));
+            }
+        }
+        return new Changes(current, changed);
+    }
+
+    /**
+     * Returns a random id chosen when this repository was created. Versions are only
+     * comparable between readers that saw the same epoch.
+     */
+    public long getEpoch() {
+        return epoch;
     }
 
-    private void addProduct(Product product) {
-        products.put(product.getId(), product);
+    /**
+     * Returns a counter that changes whenever the catalog contents change.
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
-     * Returns all products in insertion order.
+     * Returns the number of products in the catalog.
+     */
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * Returns all products in insertion order as a read-only view; nothing is copied.
      */
     public List<Product> findAll() {
-        return Collections.unmodifiableList(new ArrayList<>(products.values()));
+        return new ProductList(snapshot);
     }
 
     /**
      * Returns a product by id, or empty if not found.
      */
     public Optional<Product> findById(int id) {
-        return Optional.ofNullable(products.get(id));
+        Snapshot current = snapshot;
+        int position = current.index.get(id);
+        return position >= 0 && position < current.size
+                ? Optional.of(product(current, position))
+                : Optional.empty();
+    }
+
+    /**
+     * Builds the product in a row. The row is read under an optimistic stamp, and again
+     * under the read lock if a replacement overlapped, so price and name always match.
+     */
+    private Product product(Snapshot current, int row) {
+        long stamp = rowLock.tryOptimisticRead();
+        long priceCents = current.prices[row];
+        int offset = current.nameOffsets[row];
+        int length = current.nameLengths[row];
+        if (!rowLock.validate(stamp)) {
+            stamp = rowLock.readLock();
+            try {
+                priceCents = current.prices[row];
+                offset = current.nameOffsets[row];
+                length = current.nameLengths[row];
+            } finally {
+                rowLock.unlockRead(stamp);
+            }
+        }
+        return new Product(current.ids[row], new String(current.names, offset, length, StandardCharsets.UTF_8),
+                priceCents);
+    }
+
+    /**
+     * Products changed since some version, and the version that includes them.
+     */
+    public static final class Changes {
+
+        private final long version;
+        private final List<Product> products;
+
+        Changes(long version, List<Product> products) {
+            this.version = version;
+            this.products = products;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+    }
+
+    /**
+     * Row columns, names, published size and id index. The arrays may be shared with newer
+     * snapshots, which only write beyond {@code size} or rewrite rows under the row lock.
+     */
+    private static final class Snapshot {
+
+        final int[] ids;
+        final long[] prices;
+        final int[] nameOffsets;
+        final int[] nameLengths;
+        final byte[] names;
+        final int size;
+        final IntIndex index;
+
+        Snapshot(int[] ids, long[] prices, int[] nameOffsets, int[] nameLengths, byte[] names,
+                 int size, IntIndex index) {
+            this.ids = ids;
+            this.prices = prices;
+            this.nameOffsets = nameOffsets;
+            this.nameLengths = nameLengths;
+            this.names = names;
+            this.size = size;
+            this.index = index;
+        }
+
+        Snapshot withCapacity(int capacity) {
+            return withCapacity(capacity, names);
+        }
+
+        /**
+         * Returns a copy with all row columns copied to new arrays of the given capacity.
+         */
+        Snapshot withCapacity(int capacity, byte[] names) {
+            return new Snapshot(Arrays.copyOf(ids, capacity), Arrays.copyOf(prices, capacity),
+                    Arrays.copyOf(nameOffsets, capacity), Arrays.copyOf(nameLengths, capacity), names,
+                    size, index);
+        }
+    }
+
+    private final class ProductList extends AbstractList<Product> implements RandomAccess {
+
+        private final Snapshot snapshot;
+
+        ProductList(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Product get(int index) {
+            if (index < 0 || index >= snapshot.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + snapshot.size);
+            }
+            return product(snapshot, index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size;
+        }
     }
 }
@@ -0,0 +1,430 @@
+package com.demo.product;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON representations of the catalog and its products, plus the binary
+ * {@link ProductCodec} form of each product, rebuilt only when the repository
+ * version changes. Each representation carries a strong ETag derived from its
+ * bytes so handlers can answer conditional requests without a body.
+ *
+ * <p>Catalogs up to {@code bufferLimit} products are pre-serialized: the full array
+ * body is kept in one buffer and every product's JSON and binary bytes alongside it.
+ * Larger catalogs keep nothing per product. The full array is serialized straight from
+ * the repository while it is written, and single products and pages on demand, so the
+ * heap held for them does not grow with the catalog. Their catalog ETag is computed by
+ * serializing the catalog once per version; a product replaced while a streamed catalog
+ * is being written may already appear in its new state, and the next request then gets
+ * the new ETag.
+ *
+ * <p>Buffered catalogs are also available gzip- and deflate-compressed. The compressed
+ * bodies are built by a background thread whenever the snapshot is rebuilt and reused
+ * until the next change, so compression costs CPU once per version and never on a
+ * request thread; until they are ready, and for streamed catalogs, the catalog is sent
+ * uncompressed.
+ */
+public class ProductResponseCache {
+
+    public static final int DEFAULT_BUFFER_LIMIT = 10_000;
+
+    private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_SEPARATOR = ", ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+    private static final int COMPRESSION_BUFFER_SIZE = 8192;
+    /** Serialized bytes collected before a streamed catalog hands them to the stream. */
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
+    private final ProductRepository repository;
+    private final int bufferLimit;
+    private final ExecutorService compressor;
+    private volatile Snapshot snapshot;
+
+    public ProductResponseCache(ProductRepository repository) {
+        this(repository, DEFAULT_BUFFER_LIMIT, true);
+    }
+
+    /**
+     * @param repository  catalog source
+     * @param bufferLimit largest catalog, in products, whose full body is kept in one buffer
+     * @param compression whether to build compressed forms of buffered catalogs
+     */
+    public ProductResponseCache(ProductRepository repository, int bufferLimit, boolean compression) {
+        this.repository = repository;
+        this.bufferLimit = bufferLimit;
+        this.compressor = compression
+                ? Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-compressor");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * Returns the full catalog as a JSON array.
+     */
+    public Representation catalog() {
+        return current().catalog;
+    }
+
+    /**
+     * Returns the full catalog as a JSON array compressed with {@code encoding}, or null if
+     * the compressed form is not built yet, compression is off or the catalog is streamed,
+     * or compressing does not make the body smaller.
+     */
+    public Representation catalog(Encoding encoding) {
+        return current().compressedCatalog(encoding);
+    }
+
+    /**
+     * Returns a single product as a JSON object, or null if the id is unknown.
+     */
+    public Representation product(int id) {
+        Snapshot current = current();
+        if (current.products == null) {
+            return repository.findById(id)
+                    .map(product -> Representation.of(JsonUtil.toJsonBytes(product)))
+                    .orElse(null);
+        }
+        int position = current.index.get(id);
+        return position >= 0 ? current.products[position] : null;
+    }
+
+    /**
+     * Returns a single product in the {@link ProductCodec} binary encoding, or null if
+     * the id is unknown or the product's name is too long for that encoding.
+     */
+    public Representation productBinary(int id) {
+        Snapshot current = current();
+        if (current.products == null) {
+            return repository.findById(id)
+                    .filter(ProductCodec::canEncode)
+                    .map(product -> Representation.of(ProductCodec.encode(product)))
+                    .orElse(null);
+        }
+        int position = current.index.get(id);
+        return position >= 0 ? current.binaryProducts[position] : null;
+    }
+
+    /**
+     * Returns up to {@code limit} products starting at catalog position {@code offset}.
+     */
+    public Page page(int offset, int limit) {
+        Snapshot current = current();
+        if (current.products == null) {
+            return streamedPage(offset, limit);
+        }
+        int end = (int) Math.min((long) offset + limit, current.products.length);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(ARRAY_START);
+        for (int i = offset; i < end; i++) {
+            if (i > offset) {
+                body.writeBytes(ARRAY_SEPARATOR);
+            }
+            body.writeBytes(current.products[i].body);
+        }
+        body.writeBytes(ARRAY_END);
+        return new Page(body.toByteArray(), end < current.products.length ? end : -1);
+    }
+
+    private Page streamedPage(int offset, int limit) {
+        List<Product> products = repository.findAll();
+        int end = (int) Math.min((long) offset + limit, products.size());
+        JsonWriter out = JsonWriter.local();
+        out.raw(ARRAY_START);
+        for (int i = offset; i < end; i++) {
+            if (i > offset) {
+                out.raw(ARRAY_SEPARATOR);
+            }
+            JsonUtil.writeProduct(out, products.get(i));
+        }
+        out.raw(ARRAY_END);
+        return new Page(out.toByteArray(), end < products.size() ? end : -1);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        long version = repository.getVersion();
+        if (current != null && current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version != repository.getVersion()) {
+                current = build();
+                snapshot = current;
+                if (compressor != null && current.catalog.getLength() >= 0) {
+                    compressor.execute(this::compressCatalog);
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Builds the compressed catalogs of the current snapshot. A snapshot replaced before
+     * its turn is skipped; its replacement has queued its own run.
+     */
+    private void compressCatalog() {
+        Snapshot current = snapshot;
+        for (Encoding encoding : Encoding.values()) {
+            if (snapshot != current) {
+                return;
+            }
+            Representation compressed = current.catalog.compress(encoding);
+            current.compressed.set(encoding.ordinal(), compressed != null ? compressed : current.catalog);
+        }
+    }
+
+    private Snapshot build() {
+        // Read the version first: a concurrent change then causes a rebuild on the next request.
+        long version = repository.getVersion();
+        List<Product> products = repository.findAll();
+        if (products.size() > bufferLimit) {
+            return new Snapshot(version, null, null, null, streamed(products));
+        }
+
+        Representation[] representations = new Representation[products.size()];
+        Representation[] binaryRepresentations = new Representation[products.size()];
+        IntIndex index = new IntIndex(representations.length);
+        ByteArrayOutputStream catalog = new ByteArrayOutputStream();
+        catalog.writeBytes(ARRAY_START);
+        for (int i = 0; i < representations.length; i++) {
+            Product product = products.get(i);
+            Representation representation = Representation.of(JsonUtil.toJsonBytes(product));
+            representations[i] = representation;
+            // A name too long for the binary encoding only costs that product its binary form.
+            binaryRepresentations[i] = ProductCodec.canEncode(product)
+                    ? Representation.of(ProductCodec.encode(product))
+                    : null;
+            index.put(product.getId(), i);
+            if (i > 0) {
+                catalog.writeBytes(ARRAY_SEPARATOR);
+            }
+            catalog.writeBytes(representation.body);
+        }
+        catalog.writeBytes(ARRAY_END);
+        return new Snapshot(version, representations, binaryRepresentations, index,
+                Representation.of(catalog.toByteArray()));
+    }
+
+    /**
+     * Returns the catalog as a representation that serializes the products while it is
+     * written, tagged from one serialization pass made now.
+     */
+    private static Representation streamed(List<Product> products) {
+        CRC32 crc = new CRC32();
+        long length;
+        try {
+            length = writeCatalog(products, new CheckedOutputStream(OutputStream.nullOutputStream(), crc));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new Representation(null, products, etag(length, crc.getValue()));
+    }
+
+    /**
+     * Serializes the products as a JSON array to the stream, a chunk at a time.
+     *
+     * @return the number of bytes written
+     */
+    private static long writeCatalog(List<Product> products, OutputStream out) throws IOException {
+        JsonWriter json = JsonWriter.local();
+        long length = 0;
+        json.raw(ARRAY_START);
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                json.raw(ARRAY_SEPARATOR);
+            }
+            JsonUtil.writeProduct(json, products.get(i));
+            if (json.size() >= STREAM_CHUNK_SIZE) {
+                length += json.size();
+                json.writeTo(out);
+                json.reset();
+            }
+        }
+        json.raw(ARRAY_END);
+        length += json.size();
+        json.writeTo(out);
+        return length;
+    }
+
+    private static String etag(long length, long crc) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(crc) + "\"";
+    }
+
+    private static final class Snapshot {
+
+        final long version;
+        // Null, like binaryProducts and index, when the catalog is streamed.
+        final Representation[] products;
+        final Representation[] binaryProducts;
+        final IntIndex index;
+        final Representation catalog;
+        // Compressed catalog per encoding, set by the compressor; the identity catalog marks "not smaller".
+        final AtomicReferenceArray<Representation> compressed =
+                new AtomicReferenceArray<>(Encoding.values().length);
+
+        Snapshot(long version, Representation[] products, Representation[] binaryProducts, IntIndex index,
+                 Representation catalog) {
+            this.version = version;
+            this.products = products;
+            this.binaryProducts = binaryProducts;
+            this.index = index;
+            this.catalog = catalog;
+        }
+
+        Representation compressedCatalog(Encoding encoding) {
+            Representation result = compressed.get(encoding.ordinal());
+            return result != catalog ? result : null;
+        }
+    }
+
+    /**
+     * Content codings the full catalog can be served in besides identity.
+     */
+    public enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        /**
+         * Returns the content-coding name used in Accept-Encoding and Content-Encoding.
+         */
+        public String getToken() {
+            return token;
+        }
+    }
+
+    /**
+     * Encoded response body together with its entity tag. The body is either held in
+     * one buffer or, for large catalogs, serialized from the products while writing.
+     */
+    public static final class Representation {
+
+        private final byte[] body;
+        private final List<Product> products;
+        // Computed from a buffered body on first use; racy but idempotent.
+        private String etag;
+
+        private Representation(byte[] body, List<Product> products, String etag) {
+            this.body = body;
+            this.products = products;
+            this.etag = etag;
+        }
+
+        static Representation of(byte[] body) {
+            return new Representation(body, null, null);
+        }
+
+        /**
+         * Returns this buffered body compressed with {@code encoding} under its own entity
+         * tag, or null if the compressed body would not be smaller. "deflate" is the zlib format
+         * RFC 9110 specifies, which is what DeflaterOutputStream writes by default.
+         */
+        private Representation compress(Encoding encoding) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OutputStream out = new BufferedOutputStream(encoding == Encoding.GZIP
+                    ? new GZIPOutputStream(buffer)
+                    : new DeflaterOutputStream(buffer), COMPRESSION_BUFFER_SIZE)) {
+                writeTo(out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            if (buffer.size() >= body.length) {
+                return null;
+            }
+            String etag = getEtag();
+            String compressedEtag = etag.substring(0, etag.length() - 1) + "-" + encoding.getToken() + "\"";
+            return new Representation(buffer.toByteArray(), null, compressedEtag);
+        }
+
+        public String getEtag() {
+            String result = etag;
+            if (result == null) {
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                result = etag(body.length, crc.getValue());
+                etag = result;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the body length, or -1 if the body is streamed and must be sent chunked.
+         */
+        public long getLength() {
+            return body != null ? body.length : -1;
+        }
+
+        /**
+         * Writes the body to the stream.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            if (body != null) {
+                out.write(body);
+            } else {
+                writeCatalog(products, out);
+            }
+        }
+
+        /**
+         * Returns true if an If-None-Match header value matches this representation.
+         * Uses the weak comparison RFC 9110 prescribes for If-None-Match.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || getEtag().equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One page of the catalog and the position where the next page starts, or -1 at the end.
+     */
+    public static final class Page {
+
+        private final byte[] body;
+        private final int nextOffset;
+
+        Page(byte[] body, int nextOffset) {
+            this.body = body;
+            this.nextOffset = nextOffset;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getNextOffset() {
+            return nextOffset;
+        }
+    }
+}
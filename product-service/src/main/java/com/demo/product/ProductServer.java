@@ -11,16 +11,36 @@ import java.net.InetSocketAddress;
 public class ProductServer {
 
     private static final int DEFAULT_PORT = 8081;
+    private static final int DEFAULT_EXECUTOR_THREADS = 64;
 
     public static void main(String[] args) throws IOException {
-        ProductRepository repository = new ProductRepository();
-        ProductHandler handler = new ProductHandler(repository);
+        int catalogSize = Integer.getInteger("product.catalog.size", 0);
+        ProductRepository repository = catalogSize > 0
+                ? ProductRepository.withGeneratedCatalog(catalogSize)
+                : new ProductRepository();
+        ProductHandler handler = new ProductHandler(repository,
+                Integer.getInteger("product.catalog.bufferLimit", ProductResponseCache.DEFAULT_BUFFER_LIMIT),
+                Boolean.parseBoolean(System.getProperty("product.compression.enabled", "true")));
 
+        String executorMode = System.getProperty("product.executor", "virtual");
+        int executorThreads = Integer.getInteger("product.executor.threads", DEFAULT_EXECUTOR_THREADS);
+
+        // HttpServer writes headers and body separately; with Nagle enabled the body waits
+        // for the peer's delayed ACK, adding ~40 ms to every response.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
         HttpServer server = HttpServer.create(new InetSocketAddress(DEFAULT_PORT), 0);
-        server.createContext("/products", handler);
-        server.setExecutor(null);
+        Metrics metrics = new Metrics();
+        metrics.gauge("catalog_products", "Products in the catalog.", repository::size);
+        metrics.gauge("catalog_version", "Catalog version, incremented on every change.", repository::getVersion);
+        server.createContext("/products", new InstrumentedHandler("/products", handler, metrics));
+        server.createContext("/catalog", new InstrumentedHandler("/catalog", new CatalogHandler(repository), metrics));
+        server.createContext("/metrics", new MetricsHandler(metrics));
+        server.setExecutor(ServerExecutors.create(executorMode, executorThreads));
         server.start();
 
-        System.out.println("Product Service running on port " + DEFAULT_PORT);
+        System.out.println("Product Service running on port " + DEFAULT_PORT
+                + " (executor: " + ServerExecutors.describe(executorMode, executorThreads) + ")");
     }
 }
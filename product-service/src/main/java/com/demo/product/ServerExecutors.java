@@ -0,0 +1,82 @@
+package com.demo.product;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the executor that runs HTTP exchanges for the product service.
+ *
+ * <p>Modes (system property {@code product.executor}):
+ * <ul>
+ *   <li>{@code virtual} (default) — one virtual thread per request. On runtimes without
+ *       virtual threads, such as the Java 17 this module targets, this falls back to the
+ *       {@code fixed} pool so the number of platform threads stays bounded.</li>
+ *   <li>{@code fixed} — a bounded platform pool sized by {@code product.executor.threads}.</li>
+ * </ul>
+ */
+public final class ServerExecutors {
+
+    // Looked up reflectively so the module still compiles and runs on Java 17.
+    private static final MethodHandle VIRTUAL_FACTORY = lookupVirtualFactory();
+
+    private ServerExecutors() {
+    }
+
+    /**
+     * Creates an executor for the given mode name.
+     *
+     * @throws IllegalArgumentException if the mode is unknown or threads is not positive
+     */
+    public static ExecutorService create(String mode, int threads) {
+        switch (mode) {
+            case "virtual":
+                if (VIRTUAL_FACTORY != null) {
+                    return newVirtual();
+                }
+                System.err.println("Virtual threads are unavailable on Java "
+                        + Runtime.version().feature() + "; falling back to a fixed pool of " + threads + " threads");
+                return newFixed(threads);
+            case "fixed":
+                return newFixed(threads);
+            default:
+                throw new IllegalArgumentException("Unknown executor mode: " + mode);
+        }
+    }
+
+    /**
+     * Describes the executor mode actually in effect, for the startup banner.
+     */
+    public static String describe(String mode, int threads) {
+        if ("fixed".equals(mode)) {
+            return "fixed(" + threads + ")";
+        }
+        return VIRTUAL_FACTORY != null ? "virtual" : "fixed(" + threads + ") (virtual threads unavailable)";
+    }
+
+    private static ExecutorService newVirtual() {
+        try {
+            return (ExecutorService) VIRTUAL_FACTORY.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create virtual-thread executor", e);
+        }
+    }
+
+    private static ExecutorService newFixed(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    private static MethodHandle lookupVirtualFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}